@@ -361,6 +361,44 @@ DEFAULT CHARACTER SET = utf8mb4
 COLLATE = utf8mb4_0900_ai_ci;
 
 
+-- -----------------------------------------------------
+-- Table `genosentinel`.`refresh_tokens`
+-- -----------------------------------------------------
+CREATE TABLE IF NOT EXISTS `genosentinel`.`refresh_tokens` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT,
+  `token_hash` CHAR(64) NOT NULL,
+  `user_id` INT NOT NULL,
+  `expires_at` DATETIME(6) NOT NULL,
+  `created_at` DATETIME(6) NOT NULL,
+  PRIMARY KEY (`id`),
+  UNIQUE INDEX `token_hash` (`token_hash` ASC) VISIBLE,
+  INDEX `user_id` (`user_id` ASC) VISIBLE,
+  INDEX `expires_at` (`expires_at` ASC) VISIBLE,
+  CONSTRAINT `refresh_tokens_ibfk_1`
+    FOREIGN KEY (`user_id`)
+    REFERENCES `genosentinel`.`users` (`id`)
+    ON DELETE CASCADE)
+ENGINE = InnoDB
+DEFAULT CHARACTER SET = utf8mb4
+COLLATE = utf8mb4_0900_ai_ci;
+
+
+-- -----------------------------------------------------
+-- Table `genosentinel`.`id_generators`
+-- Ids de users (Hibernate @TableGenerator, bloques de 50). next_val es el
+-- último id del siguiente bloque: se inicializa con MAX(id) + 50.
+-- -----------------------------------------------------
+CREATE TABLE IF NOT EXISTS `genosentinel`.`id_generators` (
+  `name` VARCHAR(64) NOT NULL,
+  `next_val` BIGINT NOT NULL,
+  PRIMARY KEY (`name`))
+ENGINE = InnoDB
+DEFAULT CHARACTER SET = utf8mb4
+COLLATE = utf8mb4_0900_ai_ci;
+
+INSERT IGNORE INTO `genosentinel`.`id_generators` (`name`, `next_val`)
+SELECT 'users', COALESCE(MAX(`id`), 0) + 50 FROM `genosentinel`.`users`;
+
 SET SQL_MODE=@OLD_SQL_MODE;
 SET FOREIGN_KEY_CHECKS=@OLD_FOREIGN_KEY_CHECKS;
 SET UNIQUE_CHECKS=@OLD_UNIQUE_CHECKS;
@@ -0,0 +1,101 @@
+#!/usr/bin/env bash
+# Mide el arranque del servicio: tiempo hasta el primer GET /actuator/health con 200 y hasta el primer
+# POST /auth/login con 200 (incluye Hibernate, seguridad y el primer BCrypt).
+# Hace una ejecución de calentamiento (registra el usuario de prueba, no cuenta) y RUNS medidas;
+# imprime cada una y la mediana.
+#
+# Uso (desde GenoSentinelAuth/, con DB_URL, DB_USER, DB_PASSWORD, CLINIC_URL y GENOMICS_URL definidas):
+#   MODE=plain scripts/startup-benchmark.sh   # mvn package               -> jar normal
+#   MODE=fast  scripts/startup-benchmark.sh   # mvn -Pfast-startup package -> AOT + CDS
+#
+# Variables: RUNS (5), PORT (8080), TIMEOUT en segundos (120), PROFILES (prod / prod,fast-startup),
+# JAVA_OPTS, APP_ARGS (argumentos extra para Spring), BENCH_USERNAME, BENCH_PASSWORD, BENCH_EMAIL.
+set -euo pipefail
+
+MODE=${MODE:-plain}
+RUNS=${RUNS:-5}
+PORT=${PORT:-8080}
+TIMEOUT=${TIMEOUT:-120}
+BENCH_USERNAME=${BENCH_USERNAME:-startup-bench}
+BENCH_PASSWORD=${BENCH_PASSWORD:-startup-bench-password}
+BENCH_EMAIL=${BENCH_EMAIL:-startup-bench@genosentinel.local}
+BASE="http://localhost:${PORT}/genosentinel"
+JAR_NAME=auth-0.0.1-SNAPSHOT.jar
+
+case "$MODE" in
+  plain)
+    PROFILES=${PROFILES:-prod}
+    CMD=(java ${JAVA_OPTS:-} -jar "target/${JAR_NAME}")
+    ;;
+  fast)
+    PROFILES=${PROFILES:-prod,fast-startup}
+    CMD=(java ${JAVA_OPTS:-} -XX:SharedArchiveFile=target/fast-startup/auth.jsa -Xlog:cds=off -Xlog:cds+dynamic=off
+         -Dspring.aot.enabled=true -jar "target/fast-startup/${JAR_NAME}")
+    ;;
+  *)
+    echo "MODE debe ser plain o fast" >&2
+    exit 1
+    ;;
+esac
+
+LOGIN_BODY="{\"username\":\"${BENCH_USERNAME}\",\"password\":\"${BENCH_PASSWORD}\",\"email\":\"${BENCH_EMAIL}\"}"
+PID=
+
+now_ms() { date +%s%3N; }
+
+stop() {
+  if [[ -n "$PID" ]] && kill -0 "$PID" 2>/dev/null; then
+    kill "$PID"
+    wait "$PID" 2>/dev/null || true
+  fi
+  PID=
+}
+trap stop EXIT
+
+# Espera hasta que la petición devuelva 200; imprime el instante en ms
+wait_for() {
+  local deadline=$(( $(now_ms) + TIMEOUT * 1000 ))
+  while (( $(now_ms) < deadline )); do
+    if [[ "$("$@" -s -o /dev/null -w '%{http_code}' 2>/dev/null || true)" == "200" ]]; then
+      now_ms
+      return 0
+    fi
+    if ! kill -0 "$PID" 2>/dev/null; then
+      echo "El servicio terminó durante el arranque (ver startup-benchmark.log)" >&2
+      return 1
+    fi
+    sleep 0.05
+  done
+  echo "Sin respuesta 200 en ${TIMEOUT}s: $*" >&2
+  return 1
+}
+
+# Una ejecución: imprime "<ms hasta /actuator/health> <ms hasta /auth/login>"
+run_once() {
+  local start health login
+  start=$(now_ms)
+  "${CMD[@]}" --server.port="$PORT" --spring.profiles.active="$PROFILES" ${APP_ARGS:-} > startup-benchmark.log 2>&1 &
+  PID=$!
+  health=$(wait_for curl "${BASE}/actuator/health")
+  if [[ "${1:-}" == "warmup" ]]; then
+    curl -s -o /dev/null -X POST "${BASE}/auth/register" -H 'Content-Type: application/json' -d "$LOGIN_BODY" || true
+  fi
+  login=$(wait_for curl -X POST "${BASE}/auth/login" -H 'Content-Type: application/json' -d "$LOGIN_BODY")
+  stop
+  echo "$(( health - start )) $(( login - start ))"
+}
+
+median() { sort -n | awk '{ v[NR] = $1 } END { print (NR % 2) ? v[(NR + 1) / 2] : int((v[NR / 2] + v[NR / 2 + 1]) / 2) }'; }
+
+echo "Modo ${MODE} (${PROFILES}): calentamiento..."
+run_once warmup > /dev/null
+
+results=()
+for i in $(seq 1 "$RUNS"); do
+  r=$(run_once)
+  results+=("$r")
+  echo "run ${i}: health ${r% *} ms, login ${r#* } ms"
+done
+
+printf '%s\n' "${results[@]}" | awk '{ print $1 }' | median | xargs -I{} echo "mediana health: {} ms"
+printf '%s\n' "${results[@]}" | awk '{ print $2 }' | median | xargs -I{} echo "mediana login:  {} ms"
@@ -0,0 +1,55 @@
+package com.autenticacion.GenoSentinelAuth.benchmark;
+
+import com.autenticacion.GenoSentinelAuth.auth.JwtAuthFilter;
+import com.autenticacion.GenoSentinelAuth.services.JwtService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark del filtro JWT completo (cabecera Authorization → contexto de seguridad)
+ * con una cadena de filtros vacía. El parámetro cache compara el caché de tokens verificados
+ * activado y desactivado; alg compara la firma HS256 con ES256.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtAuthFilterBenchmark {
+
+    @Param({"true", "false"})
+    public boolean cache;
+
+    @Param({"HS256", "ES256"})
+    public String alg;
+
+    private JwtAuthFilter filter;
+    private String authorization;
+
+    @Setup
+    public void setup() throws Exception {
+        JwtService jwtService = JwtServiceBenchmark.jwtService(alg);
+        filter = new JwtAuthFilter(jwtService, new SimpleMeterRegistry(), cache, 10_000);
+        authorization = "Bearer " + jwtService.generate("benchmark-user", List.of("USER"));
+    }
+
+    @Benchmark
+    public void doFilter(Blackhole bh) throws Exception {
+        // Petición nueva en cada iteración: OncePerRequestFilter marca la petición como ya filtrada
+        MockHttpServletRequest req = new MockHttpServletRequest("GET", "/gateway/clinical/patients");
+        req.addHeader("Authorization", authorization);
+        FilterChain chain = (request, response) ->
+                bh.consume(SecurityContextHolder.getContext().getAuthentication());
+        try {
+            filter.doFilter(req, new MockHttpServletResponse(), chain);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
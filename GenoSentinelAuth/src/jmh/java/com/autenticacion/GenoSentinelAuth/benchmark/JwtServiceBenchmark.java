@@ -0,0 +1,84 @@
+package com.autenticacion.GenoSentinelAuth.benchmark;
+
+import com.autenticacion.GenoSentinelAuth.services.JwtKeyRing;
+import com.autenticacion.GenoSentinelAuth.services.JwtService;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark de generación y validación de tokens en JwtService.
+ * Usa el mismo secreto y expiración que application.properties; alg=ES256 firma con una
+ * clave EC P-256 generada en un directorio temporal (como jwt.keys.dir).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtServiceBenchmark {
+
+    static final String SECRET = "MySuperSecretKeyForJWTs1234567890!@#";
+    static final long EXP_MINUTES = 60;
+
+    @Param({"HS256", "ES256"})
+    public String alg;
+
+    private JwtService jwtService;
+    private String token;
+    private final List<String> roles = List.of("USER");
+
+    @Setup
+    public void setup() throws Exception {
+        jwtService = jwtService(alg);
+        token = jwtService.generate("benchmark-user", roles);
+    }
+
+    @Benchmark
+    public String generate() {
+        return jwtService.generate("benchmark-user", roles);
+    }
+
+    @Benchmark
+    public Claims parse() {
+        return jwtService.parse(token);
+    }
+
+    @Benchmark
+    public JwtService.TokenClaims parseClaims() {
+        return jwtService.parseClaims(token);
+    }
+
+    /**
+     * Crea un JwtService que firma con HS256 (jwt.secret) o con una clave ES256 nueva.
+     */
+    static JwtService jwtService(String alg) throws IOException, GeneralSecurityException {
+        if (!"ES256".equals(alg)) {
+            return new JwtService(SECRET, EXP_MINUTES, new JwtKeyRing("", "", Duration.ZERO), false, new SimpleMeterRegistry());
+        }
+        Path dir = Files.createTempDirectory("jwt-keys");
+        dir.toFile().deleteOnExit();
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        KeyPair pair = generator.generateKeyPair();
+        writePem(dir.resolve("bench.key"), "PRIVATE KEY", pair.getPrivate().getEncoded());
+        writePem(dir.resolve("bench.pub"), "PUBLIC KEY", pair.getPublic().getEncoded());
+        return new JwtService(SECRET, EXP_MINUTES, new JwtKeyRing(dir.toString(), "", Duration.ZERO), false, new SimpleMeterRegistry());
+    }
+
+    private static void writePem(Path file, String type, byte[] der) throws IOException {
+        String base64 = Base64.getMimeEncoder(64, "\n".getBytes()).encodeToString(der);
+        Files.writeString(file, "-----BEGIN " + type + "-----\n" + base64 + "\n-----END " + type + "-----\n");
+        file.toFile().deleteOnExit();
+    }
+}
@@ -0,0 +1,33 @@
+package com.autenticacion.GenoSentinelAuth.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark de la verificación de contraseñas en el login.
+ * strength=10 es la fuerza por defecto de BCryptPasswordEncoder (la que usa AuthConfig).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PasswordEncoderBenchmark {
+
+    @Param({"10"})
+    public int strength;
+
+    private BCryptPasswordEncoder encoder;
+    private String hash;
+
+    @Setup
+    public void setup() {
+        encoder = new BCryptPasswordEncoder(strength);
+        hash = encoder.encode("benchmark-password");
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return encoder.matches("benchmark-password", hash);
+    }
+}
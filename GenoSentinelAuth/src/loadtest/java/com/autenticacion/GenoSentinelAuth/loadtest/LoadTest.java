@@ -0,0 +1,248 @@
+package com.autenticacion.GenoSentinelAuth.loadtest;
+
+import com.autenticacion.GenoSentinelAuth.GenoSentinelAuthApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.SimpleCommandLinePropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Prueba de carga local del gateway: arranca los microservicios simulados (StubUpstreams),
+ * el servicio completo con H2 en modo MySQL, registra un usuario y lanza contra /gateway y /auth
+ * una carga de modelo abierto (OpenLoadGenerator). Imprime throughput y percentiles por ruta.
+ * Todo corre en el mismo proceso: sirve para comparar versiones o configuraciones en la misma
+ * máquina, no como medida absoluta de capacidad.
+ *
+ * Argumentos con formato --clave=valor:
+ *   --loadtest.rate=200             peticiones por segundo
+ *   --loadtest.warmup=10s           calentamiento (no se mide)
+ *   --loadtest.duration=30s         medida
+ *   --loadtest.max-in-flight=10000  peticiones en curso antes de descartar nuevas
+ *   --loadtest.request-timeout=30s
+ *   --loadtest.mix.&lt;escenario&gt;=peso  peso de un escenario (0 lo desactiva), ver mix()
+ *   --stub.*                        latencia, tamaño y errores de los microservicios, ver StubUpstreams
+ * El resto se pasa al servicio, p. ej. --gateway.async.enabled=false o --spring.threads.virtual.enabled=true.
+ */
+public class LoadTest {
+
+    private static final String USERNAME = "loadtest";
+    private static final String PASSWORD = "loadtest-password";
+    private static final String EMAIL = "loadtest@genosentinel.local";
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    public static void main(String[] args) throws Exception {
+        StandardEnvironment env = new StandardEnvironment();
+        env.getPropertySources().addFirst(new SimpleCommandLinePropertySource(args));
+        env.setConversionService(new ApplicationConversionService());
+
+        int exitCode;
+        try (StubUpstreams stubs = new StubUpstreams(env);
+             ConfigurableApplicationContext app = new SpringApplicationBuilder(GenoSentinelAuthApplication.class)
+                     .properties(appDefaults(stubs))
+                     .run(args)) {
+            Environment appEnv = app.getEnvironment();
+            String baseUrl = "http://127.0.0.1:" + appEnv.getProperty("local.server.port")
+                    + appEnv.getProperty("server.servlet.context-path", "");
+            exitCode = run(env, appEnv, baseUrl);
+        }
+        System.exit(exitCode);
+    }
+
+    // Valores del servicio para la prueba; los argumentos de la línea de comandos tienen prioridad
+    private static Map<String, Object> appDefaults(StubUpstreams stubs) {
+        Map<String, Object> defaults = new HashMap<>();
+        defaults.put("DB_URL", "jdbc:h2:mem:loadtest;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        defaults.put("DB_USER", "sa");
+        defaults.put("DB_PASSWORD", "");
+        defaults.put("CLINIC_URL", stubs.clinicalUrl());
+        defaults.put("GENOMICS_URL", stubs.genomicUrl());
+        defaults.put("server.port", "0");
+        defaults.put("spring.jpa.hibernate.ddl-auto", "create");
+        defaults.put("spring.jpa.defer-datasource-initialization", "true");
+        defaults.put("spring.sql.init.mode", "always");
+        defaults.put("spring.sql.init.data-locations", "classpath:loadtest-data.sql");
+        // Un solo usuario e IP generan toda la carga: sin esto se mediría el cupo de RateLimitFilter
+        defaults.put("security.rate-limit.enabled", "false");
+        defaults.put("spring.main.banner-mode", "off");
+        defaults.put("logging.level.root", "WARN");
+        return defaults;
+    }
+
+    private static int run(Environment env, Environment appEnv, String baseUrl) throws Exception {
+        double rate = env.getProperty("loadtest.rate", Double.class, 200.0);
+        Duration warmup = env.getProperty("loadtest.warmup", Duration.class, Duration.ofSeconds(10));
+        Duration duration = env.getProperty("loadtest.duration", Duration.class, Duration.ofSeconds(30));
+        int maxInFlight = env.getProperty("loadtest.max-in-flight", Integer.class, 10_000);
+        Duration requestTimeout = env.getProperty("loadtest.request-timeout", Duration.class, Duration.ofSeconds(30));
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        String token = register(client, baseUrl);
+        List<OpenLoadGenerator.Scenario> mix = mix(env, baseUrl, token, requestTimeout);
+        OpenLoadGenerator generator = new OpenLoadGenerator(client, maxInFlight, requestTimeout);
+
+        System.out.printf("%nGateway load test: %.0f req/s, warmup %ss, duration %ss, %d cores%n",
+                rate, warmup.toSeconds(), duration.toSeconds(), Runtime.getRuntime().availableProcessors());
+        System.out.printf("gateway.async.enabled=%s spring.threads.virtual.enabled=%s%n",
+                appEnv.getProperty("gateway.async.enabled"), appEnv.getProperty("spring.threads.virtual.enabled"));
+        System.out.printf("stub latency=%s jitter=%s payload-bytes=%s error-rate=%s%n",
+                env.getProperty("stub.latency", "20ms"), env.getProperty("stub.latency-jitter", "0ms"),
+                env.getProperty("stub.payload-bytes", "2048"), env.getProperty("stub.error-rate", "0.0"));
+
+        if (!warmup.isZero()) {
+            generator.run(mix, rate, warmup);
+        }
+        List<OpenLoadGenerator.ScenarioResult> results = generator.run(mix, rate, duration);
+        print(results, duration);
+        return 0;
+    }
+
+    // Registra el usuario de la prueba y devuelve su access token
+    private static String register(HttpClient client, String baseUrl) throws Exception {
+        String body = JSON.writeValueAsString(Map.of("username", USERNAME, "password", PASSWORD, "email", EMAIL));
+        HttpResponse<String> response = client.send(post(baseUrl + "/auth/register", body, Duration.ofSeconds(30)),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 201) {
+            throw new IllegalStateException("Register failed: " + response.statusCode() + " " + response.body());
+        }
+        JsonNode json = JSON.readTree(response.body());
+        return json.path("access_token").asText();
+    }
+
+    /**
+     * Escenarios por defecto con su peso: sobre todo lecturas (listados, consultas puntuales y
+     * vista del paciente), algunas escrituras y algún login (BCrypt). Los ids varían para que el
+     * caché del gateway y el single-flight no respondan todas las consultas puntuales.
+     */
+    private static List<OpenLoadGenerator.Scenario> mix(Environment env, String baseUrl, String token,
+                                                         Duration timeout) {
+        String clinical = baseUrl + "/gateway/clinical";
+        String genomic = baseUrl + "/gateway/genomica";
+        String patient = "{\"firstName\":\"Load\",\"lastName\":\"Test\",\"birthDate\":\"1980-01-01\",\"gender\":\"F\"}";
+        String record = "{\"patientId\":\"1\",\"tumorTypeId\":\"1\",\"diagnosisDate\":\"2024-01-01\",\"stage\":\"II\"}";
+        String gene = "{\"symbol\":\"BRCA1\",\"full_name\":\"Breast cancer 1\",\"function_summary\":\"DNA repair\"}";
+        String variant = "{\"gene\":1,\"chromosome\":\"17\",\"position\":43044295,\"reference_base\":\"A\",\"alternate_base\":\"G\"}";
+        String assignment = "{\"patient_id\":\"1\",\"variant\":\"00000000-0000-0000-0000-000000000001\",\"allele_frequency\":0.5}";
+        String batch = "[" + String.join(",", Collections.nCopies(10, assignment)) + "]";
+        String login = "{\"username\":\"" + USERNAME + "\",\"password\":\"" + PASSWORD + "\",\"email\":\"" + EMAIL + "\"}";
+
+        Map<String, OpenLoadGenerator.Scenario> scenarios = new LinkedHashMap<>();
+        add(scenarios, env, "clinical.patients", 10, () -> get(clinical + "/patients", token, timeout));
+        add(scenarios, env, "clinical.patient", 15, () -> get(clinical + "/patients/" + id(), token, timeout));
+        add(scenarios, env, "clinical.patient-create", 3, () -> send("POST", clinical + "/patient", patient, token, timeout));
+        add(scenarios, env, "clinical.patient-status", 2, () -> send("PATCH", clinical + "/patients/" + id() + "/status", null, token, timeout));
+        add(scenarios, env, "clinical.tumortypes", 5, () -> get(clinical + "/tumortypes", token, timeout));
+        add(scenarios, env, "clinical.tumortype-create", 1, () -> send("POST", clinical + "/tumortype", "{\"name\":\"Glioma\",\"systemAffected\":\"Nervous\"}", token, timeout));
+        add(scenarios, env, "clinical.clinicalrecords", 5, () -> get(clinical + "/clinicalrecords", token, timeout));
+        add(scenarios, env, "clinical.clinicalrecord-create", 2, () -> send("POST", clinical + "/clinicalrecord", record, token, timeout));
+        add(scenarios, env, "genomic.genes", 5, () -> get(genomic + "/gene", token, timeout));
+        add(scenarios, env, "genomic.gene", 10, () -> get(genomic + "/gene/" + id(), token, timeout));
+        add(scenarios, env, "genomic.gene-create", 1, () -> send("POST", genomic + "/gene", gene, token, timeout));
+        add(scenarios, env, "genomic.gene-update", 1, () -> send("PATCH", genomic + "/gene/" + id(), gene, token, timeout));
+        add(scenarios, env, "genomic.gene-delete", 1, () -> send("DELETE", genomic + "/gene/" + id(), null, token, timeout));
+        add(scenarios, env, "genomic.variants", 5, () -> get(genomic + "/genetic-variants", token, timeout));
+        add(scenarios, env, "genomic.variant", 10, () -> get(genomic + "/genetic-variants/" + UUID.randomUUID(), token, timeout));
+        add(scenarios, env, "genomic.variant-create", 1, () -> send("POST", genomic + "/genetic-variants", variant, token, timeout));
+        add(scenarios, env, "genomic.variant-update", 1, () -> send("PATCH", genomic + "/genetic-variants/" + UUID.randomUUID(), variant, token, timeout));
+        add(scenarios, env, "genomic.variant-delete", 1, () -> send("DELETE", genomic + "/genetic-variants/" + UUID.randomUUID(), null, token, timeout));
+        add(scenarios, env, "genomic.patient-create", 1, () -> send("POST", genomic + "/patients", patient, token, timeout));
+        add(scenarios, env, "genomic.assign-variant", 2, () -> send("POST", genomic + "/assign-genetic-variant", assignment, token, timeout));
+        add(scenarios, env, "genomic.assign-variant-batch", 1, () -> send("POST", genomic + "/assign-genetic-variant/batch", batch, token, timeout));
+        add(scenarios, env, "genomic.variant-reports", 5, () -> get(genomic + "/patient-variant-reports", token, timeout));
+        add(scenarios, env, "patients.view", 10, () -> get(baseUrl + "/gateway/patients/"
+                + ThreadLocalRandom.current().nextInt(1, StubUpstreams.PATIENTS + 1) + "/view", token, timeout));
+        add(scenarios, env, "auth.login", 1, () -> post(baseUrl + "/auth/login", login, timeout));
+
+        if (scenarios.isEmpty()) {
+            throw new IllegalArgumentException("All loadtest.mix.* weights are 0");
+        }
+        return List.copyOf(scenarios.values());
+    }
+
+    private static void add(Map<String, OpenLoadGenerator.Scenario> scenarios, Environment env, String name,
+                            int defaultWeight, Supplier<HttpRequest> request) {
+        int weight = env.getProperty("loadtest.mix." + name, Integer.class, defaultWeight);
+        if (weight > 0) {
+            scenarios.put(name, new OpenLoadGenerator.Scenario(name, weight, request));
+        }
+    }
+
+    private static String id() {
+        return String.valueOf(ThreadLocalRandom.current().nextInt(1, 1001));
+    }
+
+    private static HttpRequest get(String url, String token, Duration timeout) {
+        return send("GET", url, null, token, timeout);
+    }
+
+    private static HttpRequest post(String url, String json, Duration timeout) {
+        return send("POST", url, json, null, timeout);
+    }
+
+    private static HttpRequest send(String method, String url, String json, String token, Duration timeout) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(timeout)
+                .method(method, json == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(json));
+        if (json != null) {
+            request.header("Content-Type", "application/json");
+        }
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        return request.build();
+    }
+
+    private static void print(List<OpenLoadGenerator.ScenarioResult> results, Duration duration) {
+        double seconds = duration.toNanos() / 1e9;
+        String format = "%-32s %8s %8s %8s %9s %9s %9s %9s %9s %9s%n";
+        System.out.println();
+        System.out.printf(format, "scenario", "sent", "ok", "failed", "ok/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        long sent = 0, ok = 0, failed = 0, dropped = 0, unfinished = 0;
+        List<long[]> all = new ArrayList<>();
+        for (OpenLoadGenerator.ScenarioResult r : results) {
+            System.out.printf(format, r.name(), r.sent(), r.ok(), r.failed(), String.format("%.1f", r.ok() / seconds),
+                    millis(r.percentileMillis(50)), millis(r.percentileMillis(90)), millis(r.percentileMillis(99)),
+                    millis(r.percentileMillis(99.9)), millis(r.percentileMillis(100)));
+            sent += r.sent();
+            ok += r.ok();
+            failed += r.failed();
+            dropped += r.dropped();
+            unfinished += r.unfinished();
+            all.add(r.latencies());
+        }
+
+        long[] merged = all.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        OpenLoadGenerator.ScenarioResult total = new OpenLoadGenerator.ScenarioResult("TOTAL", merged, ok, Map.of(), dropped, unfinished);
+        System.out.printf(format, "TOTAL", sent, ok, failed, String.format("%.1f", ok / seconds),
+                millis(total.percentileMillis(50)), millis(total.percentileMillis(90)), millis(total.percentileMillis(99)),
+                millis(total.percentileMillis(99.9)), millis(total.percentileMillis(100)));
+        System.out.printf("%nnot sent (max-in-flight): %d, no response: %d%n", dropped, unfinished);
+        for (OpenLoadGenerator.ScenarioResult r : results) {
+            if (!r.errors().isEmpty()) {
+                System.out.printf("errors %s: %s%n", r.name(), r.errors());
+            }
+        }
+    }
+
+    private static String millis(double value) {
+        return Double.isNaN(value) ? "-" : String.format("%.1f", value);
+    }
+}
@@ -0,0 +1,183 @@
+package com.autenticacion.GenoSentinelAuth.loadtest;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Generador de carga de modelo abierto: las peticiones llegan a una tasa fija (llegadas de Poisson)
+ * tanto si las anteriores han terminado como si no, igual que los usuarios reales.
+ * La latencia se mide desde el instante en que la petición debía salir, no desde que salió:
+ * si el generador o el gateway se retrasan, el retraso cuenta (sin coordinated omission).
+ */
+public class OpenLoadGenerator {
+
+    /**
+     * Un tipo de petición de la mezcla: weight relativo y petición nueva en cada llamada.
+     */
+    public record Scenario(String name, int weight, Supplier<HttpRequest> request) {
+    }
+
+    /**
+     * Resultado de un escenario (latencias en nanosegundos, ordenadas).
+     * @param errors respuestas que no son 2xx y fallos de conexión, por estado o tipo de excepción
+     * @param dropped peticiones que no se enviaron por superar max-in-flight
+     * @param unfinished peticiones sin respuesta al terminar la espera final
+     */
+    public record ScenarioResult(String name, long[] latencies, long ok, Map<String, Long> errors,
+                                 long dropped, long unfinished) {
+
+        public long sent() {
+            return latencies.length + unfinished;
+        }
+
+        public long failed() {
+            return errors.values().stream().mapToLong(Long::longValue).sum();
+        }
+
+        /**
+         * Percentil (0..100) en milisegundos, o NaN si no hubo respuestas.
+         */
+        public double percentileMillis(double percentile) {
+            if (latencies.length == 0) {
+                return Double.NaN;
+            }
+            int index = (int) Math.ceil(percentile / 100.0 * latencies.length) - 1;
+            return latencies[Math.max(0, Math.min(index, latencies.length - 1))] / 1_000_000.0;
+        }
+    }
+
+    private final HttpClient client;
+    private final int maxInFlight;
+    private final Duration drainTimeout;
+
+    /**
+     * @param client cliente HTTP compartido por todas las peticiones
+     * @param maxInFlight peticiones en curso a partir de las que se descartan las nuevas (protege al generador)
+     * @param drainTimeout espera máxima de las respuestas pendientes al terminar
+     */
+    public OpenLoadGenerator(HttpClient client, int maxInFlight, Duration drainTimeout) {
+        this.client = client;
+        this.maxInFlight = maxInFlight;
+        this.drainTimeout = drainTimeout;
+    }
+
+    /**
+     * Envía rate peticiones por segundo durante duration, eligiendo cada una según los pesos de la mezcla.
+     * @return un resultado por escenario, en el orden de la mezcla
+     */
+    public List<ScenarioResult> run(List<Scenario> mix, double rate, Duration duration) throws InterruptedException {
+        int total = (int) Math.min(Integer.MAX_VALUE - 8, Math.round(rate * duration.toNanos() / 1e9));
+        int[] cumulative = new int[mix.size()];
+        int weights = 0;
+        for (int s = 0; s < mix.size(); s++) {
+            weights += mix.get(s).weight();
+            cumulative[s] = weights;
+        }
+
+        // Un hueco por petición: escenario, latencia y estado (0 = sin respuesta, -1 = descartada)
+        int[] scenarioOf = new int[total];
+        long[] latencies = new long[total];
+        int[] statuses = new int[total];
+        List<Map<String, LongAdder>> exceptions = new ArrayList<>();
+        mix.forEach(s -> exceptions.add(new ConcurrentHashMap<>()));
+        AtomicInteger inFlight = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(total);
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double meanGapNanos = 1e9 / rate;
+        long start = System.nanoTime();
+        double offset = 0;
+        for (int i = 0; i < total; i++) {
+            // Llegadas de Poisson: el intervalo entre peticiones sigue una distribución exponencial
+            offset += -Math.log(1.0 - random.nextDouble()) * meanGapNanos;
+            long intended = start + (long) offset;
+            long wait;
+            while ((wait = intended - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            int pick = random.nextInt(weights);
+            int s = 0;
+            while (cumulative[s] <= pick) {
+                s++;
+            }
+            scenarioOf[i] = s;
+            if (inFlight.incrementAndGet() > maxInFlight) {
+                inFlight.decrementAndGet();
+                statuses[i] = -1;
+                done.countDown();
+                continue;
+            }
+
+            int slot = i;
+            int scenario = s;
+            client.sendAsync(mix.get(s).request().get(), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        latencies[slot] = System.nanoTime() - intended;
+                        if (error != null) {
+                            Throwable cause = error.getCause() != null ? error.getCause() : error;
+                            exceptions.get(scenario)
+                                    .computeIfAbsent(cause.getClass().getSimpleName(), k -> new LongAdder())
+                                    .increment();
+                            statuses[slot] = 1;
+                        } else {
+                            statuses[slot] = response.statusCode();
+                        }
+                        inFlight.decrementAndGet();
+                        done.countDown();
+                    });
+        }
+        done.await(drainTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        return results(mix, scenarioOf, latencies, statuses, exceptions);
+    }
+
+    // Agrupa los huecos por escenario; los que siguen sin respuesta cuentan como unfinished
+    private static List<ScenarioResult> results(List<Scenario> mix, int[] scenarioOf, long[] latencies,
+                                                int[] statuses, List<Map<String, LongAdder>> exceptions) {
+        int[] sizes = new int[mix.size()];
+        for (int scenario : scenarioOf) {
+            sizes[scenario]++;
+        }
+        List<ScenarioResult> results = new ArrayList<>(mix.size());
+        for (int s = 0; s < mix.size(); s++) {
+            long[] values = new long[sizes[s]];
+            int count = 0;
+            long ok = 0, dropped = 0, unfinished = 0;
+            Map<String, Long> errors = new TreeMap<>();
+            for (int i = 0; i < scenarioOf.length; i++) {
+                if (scenarioOf[i] != s) {
+                    continue;
+                }
+                int status = statuses[i];
+                if (status == -1) {
+                    dropped++;
+                } else if (status == 0) {
+                    unfinished++;
+                } else {
+                    values[count++] = latencies[i];
+                    if (status >= 200 && status < 300) {
+                        ok++;
+                    } else if (status != 1) {
+                        errors.merge(String.valueOf(status), 1L, Long::sum);
+                    }
+                }
+            }
+            exceptions.get(s).forEach((type, n) -> errors.merge(type, n.sum(), Long::sum));
+            long[] sorted = Arrays.copyOf(values, count);
+            Arrays.sort(sorted);
+            results.add(new ScenarioResult(mix.get(s).name(), sorted, ok, errors, dropped, unfinished));
+        }
+        return results;
+    }
+}
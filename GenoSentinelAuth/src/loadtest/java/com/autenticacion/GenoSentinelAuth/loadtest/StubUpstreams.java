@@ -0,0 +1,207 @@
+package com.autenticacion.GenoSentinelAuth.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.springframework.core.env.Environment;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+/**
+ * Microservicios clínico y genómico simulados (HttpServer del JDK, un hilo virtual por petición).
+ * Responden a todas las rutas que usan ClinicalGatewayController, GenomicaGatewayController y
+ * PatientViewGatewayController con JSON generado al arrancar.
+ * Latencia, tamaño de la respuesta y tasa de error se configuran para todas las rutas
+ * (stub.latency, stub.latency-jitter, stub.payload-bytes, stub.error-rate, stub.error-status) y
+ * por ruta con stub.route.&lt;nombre&gt;.* (p. ej. stub.route.clinical.patients.latency=80ms).
+ */
+public class StubUpstreams implements AutoCloseable {
+
+    /**
+     * Listas de los microservicios: cada elemento lleva patientId / patient_id (1..PATIENTS)
+     * para que la vista agregada del paciente encuentre sus historias y reportes.
+     */
+    static final int PATIENTS = 10;
+
+    private enum Shape { LIST, OBJECT }
+
+    private record Route(String name, Pattern method, Pattern path, Shape shape) {
+    }
+
+    // Rutas de los microservicios tal como las llama el gateway (sin la barra final de genómica)
+    private static final List<Route> CLINICAL_ROUTES = List.of(
+            route("clinical.patients", "GET", "/patients", Shape.LIST),
+            route("clinical.patient", "GET", "/patients/[^/]+", Shape.OBJECT),
+            route("clinical.patient-create", "POST", "/patients", Shape.OBJECT),
+            route("clinical.patient-status", "PATCH", "/patients/[^/]+/status", Shape.OBJECT),
+            route("clinical.tumortypes", "GET", "/tumortypes", Shape.LIST),
+            route("clinical.tumortype-create", "POST", "/tumortypes", Shape.OBJECT),
+            route("clinical.clinicalrecords", "GET", "/clinicalrecords", Shape.LIST),
+            route("clinical.clinicalrecord-create", "POST", "/clinicalrecords", Shape.OBJECT)
+    );
+
+    private static final List<Route> GENOMIC_ROUTES = List.of(
+            route("genomic.genes", "GET", "/gene", Shape.LIST),
+            route("genomic.gene", "GET", "/gene/[^/]+", Shape.OBJECT),
+            route("genomic.gene-create", "POST", "/gene", Shape.OBJECT),
+            // ApiClient.patch(url, body) envía la actualización como POST
+            route("genomic.gene-update", "PATCH|POST", "/gene/[^/]+", Shape.OBJECT),
+            route("genomic.gene-delete", "DELETE", "/gene/[^/]+", Shape.OBJECT),
+            route("genomic.variants", "GET", "/genetic-variants", Shape.LIST),
+            route("genomic.variant", "GET", "/genetic-variants/[^/]+", Shape.OBJECT),
+            route("genomic.variant-create", "POST", "/genetic-variants", Shape.OBJECT),
+            route("genomic.variant-update", "PATCH|POST", "/genetic-variants/[^/]+", Shape.OBJECT),
+            route("genomic.variant-delete", "DELETE", "/genetic-variants/[^/]+", Shape.OBJECT),
+            route("genomic.patient-create", "POST", "/patients", Shape.OBJECT),
+            route("genomic.assign-variant", "POST", "/assign-genetic-variant", Shape.OBJECT),
+            route("genomic.variant-reports", "GET", "/patient-variant-reports", Shape.LIST)
+    );
+
+    /**
+     * Comportamiento de una ruta: respuesta pregenerada, latencia y probabilidad de error.
+     */
+    private record Behavior(byte[] body, long latencyNanos, long jitterNanos, double errorRate, int errorStatus) {
+    }
+
+    private final HttpServer clinical;
+    private final HttpServer genomic;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public StubUpstreams(Environment env) throws IOException {
+        this.clinical = start(CLINICAL_ROUTES, env);
+        this.genomic = start(GENOMIC_ROUTES, env);
+    }
+
+    public String clinicalUrl() {
+        return "http://127.0.0.1:" + clinical.getAddress().getPort();
+    }
+
+    public String genomicUrl() {
+        return "http://127.0.0.1:" + genomic.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        clinical.stop(0);
+        genomic.stop(0);
+        executor.close();
+    }
+
+    // -------------------------------
+    // Helpers
+    // -------------------------------
+
+    private static Route route(String name, String method, String path, Shape shape) {
+        return new Route(name, Pattern.compile(method), Pattern.compile(path), shape);
+    }
+
+    private HttpServer start(List<Route> routes, Environment env) throws IOException {
+        Behavior[] behaviors = routes.stream().map(route -> behavior(route, env)).toArray(Behavior[]::new);
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        server.setExecutor(executor);
+        server.createContext("/", exchange -> {
+            try (exchange) {
+                handle(exchange, routes, behaviors);
+            }
+        });
+        server.start();
+        return server;
+    }
+
+    private static void handle(HttpExchange exchange, List<Route> routes, Behavior[] behaviors) throws IOException {
+        // El cuerpo de la petición se consume entero para que la conexión se pueda reutilizar
+        try (InputStream in = exchange.getRequestBody()) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        String path = exchange.getRequestURI().getPath();
+        if (path.length() > 1 && path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+        for (int i = 0; i < routes.size(); i++) {
+            Route route = routes.get(i);
+            if (route.method().matcher(exchange.getRequestMethod()).matches() && route.path().matcher(path).matches()) {
+                respond(exchange, behaviors[i]);
+                return;
+            }
+        }
+        send(exchange, 404, "{\"error\":\"No stub for " + exchange.getRequestMethod() + " " + path + "\"}");
+    }
+
+    private static void respond(HttpExchange exchange, Behavior behavior) throws IOException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long delay = behavior.latencyNanos()
+                + (behavior.jitterNanos() > 0 ? random.nextLong(behavior.jitterNanos() + 1) : 0);
+        if (delay > 0) {
+            try {
+                Thread.sleep(Duration.ofNanos(delay));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        if (behavior.errorRate() > 0 && random.nextDouble() < behavior.errorRate()) {
+            send(exchange, behavior.errorStatus(), "{\"error\":\"Stub error\"}");
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, behavior.body().length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(behavior.body());
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    // stub.route.<nombre>.<clave> y, si no existe, stub.<clave>
+    private static Behavior behavior(Route route, Environment env) {
+        String prefix = "stub.route." + route.name() + ".";
+        Duration latency = property(env, prefix, "latency", Duration.class, Duration.ofMillis(20));
+        Duration jitter = property(env, prefix, "latency-jitter", Duration.class, Duration.ZERO);
+        int payloadBytes = property(env, prefix, "payload-bytes", Integer.class, 2048);
+        double errorRate = property(env, prefix, "error-rate", Double.class, 0.0);
+        int errorStatus = property(env, prefix, "error-status", Integer.class, 500);
+        return new Behavior(payload(route.shape(), payloadBytes), latency.toNanos(), jitter.toNanos(),
+                errorRate, errorStatus);
+    }
+
+    private static <T> T property(Environment env, String routePrefix, String key, Class<T> type, T defaultValue) {
+        T value = env.getProperty(routePrefix + key, type);
+        return value != null ? value : env.getProperty("stub." + key, type, defaultValue);
+    }
+
+    // JSON de aproximadamente payloadBytes: un objeto, o un arreglo de objetos de ~256 bytes
+    private static byte[] payload(Shape shape, int payloadBytes) {
+        if (shape == Shape.OBJECT) {
+            return item(1, Math.max(0, payloadBytes - 80)).getBytes(StandardCharsets.UTF_8);
+        }
+        int items = Math.max(1, payloadBytes / 256);
+        StringBuilder json = new StringBuilder(payloadBytes + 64).append('[');
+        for (int i = 1; i <= items; i++) {
+            json.append(i > 1 ? "," : "").append(item(i, 176));
+        }
+        return json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String item(int id, int padding) {
+        int patient = (id - 1) % PATIENTS + 1;
+        return "{\"id\":\"" + id + "\",\"patientId\":\"" + patient + "\",\"patient_id\":\"" + patient
+                + "\",\"name\":\"stub-" + id + "\",\"data\":\"" + "x".repeat(padding) + "\"}";
+    }
+}
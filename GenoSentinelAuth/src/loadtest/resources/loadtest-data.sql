@@ -0,0 +1,3 @@
+-- Roles que necesita el registro del usuario de la prueba de carga (ver LoadTest)
+INSERT INTO roles (name) VALUES ('USER');
+INSERT INTO roles (name) VALUES ('ADMIN');
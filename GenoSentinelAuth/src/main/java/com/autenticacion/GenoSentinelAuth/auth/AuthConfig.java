@@ -1,13 +1,14 @@
 package com.autenticacion.GenoSentinelAuth.auth;
 
-import com.autenticacion.GenoSentinelAuth.repositories.UsersRepository;
+import com.autenticacion.GenoSentinelAuth.services.UserCacheService;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 
 /**
  * Configuración de autenticación y seguridad para la aplicación.
@@ -18,28 +19,38 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 @EnableWebSecurity
 @RequiredArgsConstructor
 public class AuthConfig {
-    /**
-     * Repositorio para la gestión de usuarios en la autenticación.
-     */
-    private final UsersRepository usersRepository;
-
     /**
      * Bean para la codificación de contraseñas usando BCrypt.
-     * @return PasswordEncoder seguro para almacenar contraseñas
+     * El hashing se ejecuta en un pool acotado para que los logins no acaparen la CPU del gateway.
+     * @param strength coste BCrypt configurado
+     * @param threads hilos dedicados al hashing (0 = la mitad de los núcleos)
+     * @param queueCapacity operaciones en espera antes de responder 503
+     * @param registry registro de métricas
+     * @return PasswordEncoder seguro para almacenar contraseñas (con encodeAll para la importación masiva)
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public BoundedPasswordEncoder passwordEncoder(@Value("${security.bcrypt.strength:10}") int strength,
+                                           @Value("${security.bcrypt.threads:0}") int threads,
+                                           @Value("${security.bcrypt.queue-capacity:64}") int queueCapacity,
+                                           MeterRegistry registry) {
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        return new BoundedPasswordEncoder(strength, poolSize, queueCapacity, registry);
     }
 
     /**
-     * Bean para cargar los detalles de usuario desde la base de datos.
-     * Utilizado por Spring Security para autenticar usuarios.
+     * Bean para cargar los detalles de usuario desde la base de datos. Consulta primero el caché de usuarios.
+     * El login no pasa por Spring Security (AuthController verifica la contraseña), pero sin este bean
+     * Spring Boot crearía un usuario en memoria con una contraseña generada.
      * @return UserDetailsService que busca usuarios por nombre de usuario
      */
     @Bean
-    public UserDetailsService userDetailsService() {
-        return username -> usersRepository.findByUsername(username)
+    public UserDetailsService userDetailsService(UserCacheService userCache) {
+        return username -> userCache.findByUsername(username)
+                .map(user -> User.withUsername(user.username())
+                        .password(user.passwordHash())
+                        .disabled(!user.enabled())
+                        .roles(user.role())
+                        .build())
                 .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
     }
 }
@@ -0,0 +1,172 @@
+package com.autenticacion.GenoSentinelAuth.auth;
+
+import com.autenticacion.GenoSentinelAuth.exceptions.ServiceBusyException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * PasswordEncoder BCrypt que ejecuta el hashing en un pool de hilos propio y acotado.
+ * Así una ráfaga de logins o registros ocupa como máximo {@code threads} núcleos y deja CPU
+ * libre para las rutas del gateway. Si además la cola de espera está llena, la operación se
+ * rechaza con ServiceBusyException (503 + Retry-After) en lugar de acumular peticiones.
+ * Publica el Timer auth.password.hash (etiqueta operation=encode|matches) y las métricas
+ * executor.* del pool con name=bcrypt.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder, DisposableBean {
+
+    // $2a$10$... : versión y coste del hash BCrypt
+    private static final Pattern BCRYPT_COST = Pattern.compile("\\A\\$2[aby]?\\$(\\d\\d)\\$");
+
+    private final BCryptPasswordEncoder delegate;
+    private final int strength;
+    private final ThreadPoolExecutor executor;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final long retryAfterSeconds;
+
+    /**
+     * @param strength coste BCrypt (log2 de las rondas)
+     * @param threads hilos dedicados al hashing
+     * @param queueCapacity operaciones que pueden esperar turno antes de rechazar
+     * @param registry registro de métricas
+     */
+    public BoundedPasswordEncoder(int strength, int threads, int queueCapacity, MeterRegistry registry) {
+        this.delegate = new BCryptPasswordEncoder(strength);
+        this.strength = strength;
+
+        AtomicInteger count = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "bcrypt-" + count.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor = pool;
+        ExecutorServiceMetrics.monitor(registry, pool, "bcrypt");
+
+        this.encodeTimer = Timer.builder("auth.password.hash")
+                .description("Tiempo de cálculo de hashes BCrypt")
+                .tag("operation", "encode")
+                .register(registry);
+        this.matchesTimer = Timer.builder("auth.password.hash")
+                .description("Tiempo de cálculo de hashes BCrypt")
+                .tag("operation", "matches")
+                .register(registry);
+
+        // Tiempo aproximado para vaciar una cola llena: ~2^(strength-10) × 60 ms por hash
+        double hashSeconds = 0.06 * Math.pow(2, strength - 10);
+        this.retryAfterSeconds = Math.max(1, (long) Math.ceil(hashSeconds * (queueCapacity + threads) / threads));
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(encodeTimer, () -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(matchesTimer, () -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Calcula los hashes de varias contraseñas en paralelo con los hilos del pool (importación masiva).
+     * Nunca tiene más de {@code threads} hashes enviados a la vez, para que la cola siga teniendo
+     * sitio para los logins; si el pool está ocupado espera a que termine uno de los suyos.
+     * @param rawPasswords contraseñas en claro
+     * @return hashes en el mismo orden que las contraseñas
+     */
+    public List<String> encodeAll(List<? extends CharSequence> rawPasswords) {
+        int window = executor.getMaximumPoolSize();
+        List<Future<String>> results = new ArrayList<>(rawPasswords.size());
+        int done = 0;
+        try {
+            for (CharSequence rawPassword : rawPasswords) {
+                while (true) {
+                    if (results.size() - done >= window) {
+                        results.get(done++).get();
+                    }
+                    try {
+                        results.add(executor.submit(() -> encodeTimer.record(() -> delegate.encode(rawPassword))));
+                        break;
+                    } catch (RejectedExecutionException e) {
+                        if (results.size() == done) {
+                            throw new ServiceBusyException("Too many authentication requests, retry later", retryAfterSeconds);
+                        }
+                        results.get(done++).get();
+                    }
+                }
+            }
+            List<String> hashes = new ArrayList<>(results.size());
+            for (Future<String> result : results) {
+                hashes.add(result.get());
+            }
+            return hashes;
+        } catch (InterruptedException e) {
+            results.forEach(result -> result.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing passwords", e);
+        } catch (ExecutionException e) {
+            results.forEach(result -> result.cancel(true));
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (RuntimeException e) {
+            results.forEach(result -> result.cancel(true));
+            throw e;
+        }
+    }
+
+    /**
+     * Indica si un hash debe recalcularse porque se hizo con un coste distinto al configurado
+     * (tanto si se subió como si se bajó). AuthController lo recalcula tras un login correcto.
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher m = BCRYPT_COST.matcher(encodedPassword);
+        return m.find() && Integer.parseInt(m.group(1)) != strength;
+    }
+
+    private <T> T run(Timer timer, Supplier<T> hash) {
+        Future<T> result;
+        try {
+            result = executor.submit(() -> timer.record(hash));
+        } catch (RejectedExecutionException e) {
+            throw new ServiceBusyException("Too many authentication requests, retry later", retryAfterSeconds);
+        }
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing password", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
@@ -1,10 +1,16 @@
 package com.autenticacion.GenoSentinelAuth.auth;
 
 import com.autenticacion.GenoSentinelAuth.services.JwtService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -12,6 +18,12 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.List;
 
 /**
@@ -19,6 +31,9 @@ import java.util.List;
  * Intercepta cada petici0n HTTP y valida el token JWT presente en la cabecera Authorization.
  * Si el token es valido, establece la autenticacion en el contexto de seguridad con los roles del usuario.
  * Si el token es invalido o no está presente, la petición continúa sin autenticacion.
+ * Los tokens ya verificados se guardan en un caché (clave: SHA-256 del token) hasta su expiración,
+ * de modo que las peticiones repetidas con el mismo token no vuelven a verificar la firma ni a leer los claims.
+ * Configurable con jwt.cache.enabled y jwt.cache.max-size; publica métricas cache.* con cache=jwt.tokens.
  */
 @Component
 public class JwtAuthFilter extends OncePerRequestFilter {
@@ -29,11 +44,54 @@ public class JwtAuthFilter extends OncePerRequestFilter {
     private final JwtService jwtService;
 
     /**
-     * Constructor que inyecta el servicio JWT.
+     * Tokens ya verificados, indexados por el SHA-256 del token. Null si el caché está desactivado.
+     */
+    private final Cache<String, VerifiedToken> verifiedTokens;
+
+    /**
+     * Resultado de verificar un token: usuario, autoridades, fecha de expiración y kid de la clave de firma.
+     */
+    private record VerifiedToken(String username, List<SimpleGrantedAuthority> authorities, Instant expiresAt, String keyId) {
+    }
+
+    /**
+     * Constructor que inyecta el servicio JWT y crea el caché de tokens verificados.
      * @param jwtService servicio para parsear y validar tokens
+     * @param registry registro de métricas donde se publica el caché
+     * @param cacheEnabled si se cachean los tokens verificados
+     * @param cacheMaxSize número máximo de tokens en caché
      */
-    public JwtAuthFilter(JwtService jwtService) {
+    public JwtAuthFilter(JwtService jwtService,
+                         MeterRegistry registry,
+                         @Value("${jwt.cache.enabled:true}") boolean cacheEnabled,
+                         @Value("${jwt.cache.max-size:10000}") long cacheMaxSize) {
         this.jwtService = jwtService;
+        if (cacheEnabled) {
+            // Cada entrada caduca exactamente cuando expira su token
+            this.verifiedTokens = Caffeine.newBuilder()
+                    .maximumSize(cacheMaxSize)
+                    .expireAfter(new Expiry<String, VerifiedToken>() {
+                        @Override
+                        public long expireAfterCreate(String digest, VerifiedToken token, long currentTime) {
+                            return Math.max(0, Duration.between(Instant.now(), token.expiresAt()).toNanos());
+                        }
+
+                        @Override
+                        public long expireAfterUpdate(String digest, VerifiedToken token, long currentTime, long currentDuration) {
+                            return expireAfterCreate(digest, token, currentTime);
+                        }
+
+                        @Override
+                        public long expireAfterRead(String digest, VerifiedToken token, long currentTime, long currentDuration) {
+                            return currentDuration;
+                        }
+                    })
+                    .recordStats()
+                    .build();
+            CaffeineCacheMetrics.monitor(registry, verifiedTokens, "jwt.tokens");
+        } else {
+            this.verifiedTokens = null;
+        }
     }
 
     /**
@@ -59,23 +117,11 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         // Extrae el token JWT
         String token = header.substring(7);
         try {
-            // Parsea y valida el token
-            io.jsonwebtoken.Claims claims = jwtService.parse(token);
-            String username = claims.getSubject();
-
-            @SuppressWarnings("unchecked")
-            List<String> roles = (List<String>) claims.get("roles");
-
-            // Convierte los roles en autoridades de Spring Security
-            List<SimpleGrantedAuthority> authorities =
-                    (roles == null ? List.<String>of() : roles).stream()
-                            .map(r -> r.startsWith("ROLE_") ? r : "ROLE_" + r)
-                            .map(SimpleGrantedAuthority::new)
-                            .toList();
+            VerifiedToken verified = verify(token);
 
             // Crea el token de autenticacion y lo establece en el contexto
             UsernamePasswordAuthenticationToken auth =
-                    new UsernamePasswordAuthenticationToken(username, "N/A", authorities);
+                    new UsernamePasswordAuthenticationToken(verified.username(), "N/A", verified.authorities());
 
             SecurityContextHolder.getContext().setAuthentication(auth);
         } catch (Exception e) {
@@ -85,4 +131,51 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
         chain.doFilter(req, res);
     }
+
+    /**
+     * Devuelve el token verificado desde el caché o, si no está, lo valida con JwtService.
+     * Solo se cachean tokens válidos y con fecha de expiración.
+     * @param token token JWT sin el prefijo Bearer
+     * @return usuario y autoridades del token
+     */
+    private VerifiedToken verify(String token) {
+        if (verifiedTokens == null) {
+            return parse(token);
+        }
+        String digest = digest(token);
+        VerifiedToken cached = verifiedTokens.getIfPresent(digest);
+        // La comprobación de expiración cubre el intervalo antes de que Caffeine retire la entrada;
+        // si la clave que firmó el token se retiró en una rotación, se vuelve a validar (y fallará)
+        if (cached != null && cached.expiresAt().isAfter(Instant.now()) && jwtService.isVerificationKey(cached.keyId())) {
+            return cached;
+        }
+        VerifiedToken verified = parse(token);
+        if (verified.expiresAt() != null) {
+            verifiedTokens.put(digest, verified);
+        }
+        return verified;
+    }
+
+    private VerifiedToken parse(String token) {
+        // Parsea y valida el token (solo sub, exp y roles)
+        JwtService.TokenClaims claims = jwtService.parseClaims(token);
+
+        // Convierte los roles en autoridades de Spring Security
+        List<SimpleGrantedAuthority> authorities = claims.roles().stream()
+                .map(r -> r.startsWith("ROLE_") ? r : "ROLE_" + r)
+                .map(SimpleGrantedAuthority::new)
+                .toList();
+
+        return new VerifiedToken(claims.subject(), authorities, claims.expiration(), claims.keyId());
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 está garantizado en toda JVM
+            throw new IllegalStateException(e);
+        }
+    }
 }
@@ -0,0 +1,235 @@
+package com.autenticacion.GenoSentinelAuth.auth;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limita las peticiones por usuario y ruta. Va después de JwtAuthFilter en la cadena de seguridad:
+ * la clave es el usuario del JWT (sub) o, en las reglas con key=ip y en peticiones sin token, la IP del cliente.
+ * Detrás de un proxy esa IP es la de X-Forwarded-For gracias a server.forward-headers-strategy=native;
+ * sin ello todos los clientes compartirían la cubeta de la IP del proxy.
+ * Cada clave tiene una cubeta de tokens implementada con GCRA: el estado es un único instante
+ * (cuándo vuelve a estar llena la cubeta) en un AtomicLong que se actualiza con CAS, sin bloqueos.
+ * Si se supera el cupo se responde 429 con Retry-After.
+ * Las reglas se configuran con security.rate-limit.* (ver application.properties); se aplica la primera
+ * cuyo path coincide y role.&lt;ROL&gt;.* cambia el cupo para los usuarios con ese rol.
+ * Las cubetas están en un caché acotado (security.rate-limit.max-keys) y cada una caduca en el instante
+ * en que vuelve a estar llena: a partir de ahí equivale a una cubeta nueva y no hace falta guardarla.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final String PREFIX = "security.rate-limit.";
+
+    /**
+     * Cupo de una regla: intervalo entre peticiones (1 / rate) y margen de ráfaga ((burst - 1) intervalos).
+     */
+    private record Limit(long intervalNanos, long toleranceNanos) {
+
+        static Limit of(double rate, int burst) {
+            long interval = Math.max(1, Math.round(1e9 / rate));
+            return new Limit(interval, interval * (Math.max(1, burst) - 1));
+        }
+    }
+
+    /**
+     * Regla: paths a los que se aplica, si la clave es la IP y cupos por defecto y por rol.
+     */
+    private record Rule(String name, List<PathPattern> paths, boolean byIp, Limit limit,
+                        Map<String, Optional<Limit>> roleLimits, Counter rejected) {
+    }
+
+    /**
+     * Estado GCRA de una clave: instante (System.nanoTime) en que la cubeta vuelve a estar llena
+     * (el "theoretical arrival time"), con el intervalo del cupo para calcular cuándo caduca.
+     */
+    private static final class Bucket extends AtomicLong {
+
+        private final long intervalNanos;
+
+        Bucket(long tat, long intervalNanos) {
+            super(tat);
+            this.intervalNanos = intervalNanos;
+        }
+
+        // Tiempo hasta que la cubeta está llena tras la petición en curso (que avanza tat un intervalo)
+        long fullInNanos(long now) {
+            return Math.max(0, get() - now) + intervalNanos;
+        }
+    }
+
+    private final boolean enabled;
+    private final Environment env;
+    private final List<Rule> rules = new ArrayList<>();
+
+    /**
+     * Cubetas por "regla:clave".
+     */
+    private final Cache<String, Bucket> buckets;
+
+    public RateLimitFilter(Environment env, MeterRegistry registry) {
+        this.env = env;
+        this.enabled = env.getProperty(PREFIX + "enabled", Boolean.class, true);
+
+        for (String name : env.getProperty(PREFIX + "rules", String[].class, new String[0])) {
+            rules.add(rule(name.trim(), registry));
+        }
+
+        // El reloj de Caffeine (currentTime) es System.nanoTime, el mismo que el de las cubetas
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(env.getProperty(PREFIX + "max-keys", Long.class, 100_000L))
+                .expireAfter(new Expiry<String, Bucket>() {
+                    @Override
+                    public long expireAfterCreate(String key, Bucket bucket, long currentTime) {
+                        return bucket.fullInNanos(currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Bucket bucket, long currentTime, long currentDuration) {
+                        return bucket.fullInNanos(currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Bucket bucket, long currentTime, long currentDuration) {
+                        return bucket.fullInNanos(currentTime);
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, buckets, "rate-limit.buckets");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest req, HttpServletResponse res, FilterChain chain)
+            throws ServletException, IOException {
+        Rule rule = enabled ? match(req) : null;
+        if (rule == null) {
+            chain.doFilter(req, res);
+            return;
+        }
+
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        boolean authenticated = auth != null && auth.isAuthenticated() && !(auth instanceof AnonymousAuthenticationToken);
+        String key = rule.byIp() || !authenticated ? "ip:" + req.getRemoteAddr() : "user:" + auth.getName();
+        Limit limit = authenticated ? limitFor(rule, auth) : rule.limit();
+
+        long waitNanos = acquire(rule.name() + ":" + key, limit);
+        if (waitNanos > 0) {
+            rule.rejected().increment();
+            long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+            res.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            res.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+            res.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            res.getWriter().write("{\"error\":\"Too many requests\",\"status\":429,\"retryAfter\":" + retryAfter + "}");
+            return;
+        }
+        chain.doFilter(req, res);
+    }
+
+    /**
+     * GCRA: admite la petición si la cubeta no está más llena que el margen de ráfaga y avanza
+     * su instante de llenado un intervalo.
+     * @return 0 si se admite, o los nanosegundos hasta que se admitiría
+     */
+    private long acquire(String key, Limit limit) {
+        long now = System.nanoTime();
+        Bucket bucket = buckets.get(key, k -> new Bucket(now, limit.intervalNanos()));
+        while (true) {
+            long tat = bucket.get();
+            long start = tat - now > 0 ? tat : now;
+            long excess = start - now - limit.toleranceNanos();
+            if (excess > 0) {
+                return excess;
+            }
+            if (bucket.compareAndSet(tat, start + limit.intervalNanos())) {
+                return 0;
+            }
+        }
+    }
+
+    // Primera regla cuyo path coincide con la ruta de la petición (sin el context-path)
+    private Rule match(HttpServletRequest req) {
+        PathContainer path = PathContainer.parsePath(req.getRequestURI().substring(req.getContextPath().length()));
+        for (Rule rule : rules) {
+            for (PathPattern pattern : rule.paths()) {
+                if (pattern.matches(path)) {
+                    return rule;
+                }
+            }
+        }
+        return null;
+    }
+
+    // El cupo más amplio entre los roles del usuario que tienen cupo propio; si ninguno, el de la regla
+    private Limit limitFor(Rule rule, Authentication auth) {
+        Limit best = null;
+        for (GrantedAuthority authority : auth.getAuthorities()) {
+            String role = authority.getAuthority().startsWith("ROLE_")
+                    ? authority.getAuthority().substring(5) : authority.getAuthority();
+            Optional<Limit> limit = rule.roleLimits().computeIfAbsent(role, r -> roleLimit(rule.name(), r));
+            if (limit.isPresent() && (best == null || limit.get().intervalNanos() < best.intervalNanos())) {
+                best = limit.get();
+            }
+        }
+        return best != null ? best : rule.limit();
+    }
+
+    private Rule rule(String name, MeterRegistry registry) {
+        String prefix = PREFIX + name + ".";
+        PathPatternParser parser = PathPatternParser.defaultInstance;
+        List<PathPattern> paths = Arrays.stream(env.getProperty(prefix + "paths", String[].class, new String[0]))
+                .map(p -> parser.parse(p.trim()))
+                .toList();
+        if (paths.isEmpty()) {
+            throw new IllegalStateException("Rate limit rule " + name + " has no paths (" + prefix + "paths)");
+        }
+        double rate = env.getProperty(prefix + "rate", Double.class, 10.0);
+        return new Rule(
+                name,
+                paths,
+                "ip".equalsIgnoreCase(env.getProperty(prefix + "key", "user")),
+                Limit.of(rate, env.getProperty(prefix + "burst", Integer.class, (int) Math.ceil(rate))),
+                new ConcurrentHashMap<>(),
+                Counter.builder("security.rate-limit.rejected")
+                        .description("Peticiones rechazadas con 429 por superar el cupo")
+                        .tag("rule", name)
+                        .register(registry)
+        );
+    }
+
+    private Optional<Limit> roleLimit(String rule, String role) {
+        String prefix = PREFIX + rule + ".role." + role + ".";
+        Double rate = env.getProperty(prefix + "rate", Double.class);
+        if (rate == null) {
+            return Optional.empty();
+        }
+        return Optional.of(Limit.of(rate, env.getProperty(prefix + "burst", Integer.class, (int) Math.ceil(rate))));
+    }
+}
@@ -2,18 +2,13 @@ package com.autenticacion.GenoSentinelAuth.auth;
 
 // Importaciones necesarias para la configuración de seguridad
 
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.AuthenticationProvider;
-import org.springframework.security.authentication.ProviderManager;
-import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
@@ -24,8 +19,10 @@ import java.util.List;
 
 /**
  * Esta clase configura la seguridad de la aplicación.
- * Aquí se definen los filtros, las reglas de acceso, el proveedor de autenticación y la configuración CORS.
+ * Aquí se definen los filtros, las reglas de acceso y la configuración CORS.
  * Los permisos por rol se asignan usando anotaciones (@PreAuthorize) en los controladores.
+ * No hay AuthenticationProvider: las peticiones se autentican con el JWT (JwtAuthFilter) y
+ * /auth/login verifica la contraseña directamente en AuthController.
  */
 @Configuration // Indica que esta clase es de configuración para Spring
 @EnableMethodSecurity // Permite usar anotaciones como @PreAuthorize en los métodos de los controladores
@@ -33,17 +30,15 @@ import java.util.List;
 public class SecurityConfig {
     // Filtro que valida el JWT en cada petición. Si el token es válido, permite el acceso.
     private final JwtAuthFilter jwtFilter;
-    // Servicio que obtiene los datos del usuario desde la base de datos.
-    private final UserDetailsService uds;
-    // Codificador de contraseñas, por ejemplo BCrypt. Se usa para guardar y verificar contraseñas de forma segura.
-    private final PasswordEncoder encoder;
+    // Filtro que limita las peticiones por usuario (o IP) y ruta; va después del JWT para conocer al usuario.
+    private final RateLimitFilter rateLimitFilter;
 
     /**
      * Configura la cadena de filtros de seguridad y las reglas de acceso.
      * - Desactiva CSRF porque no se usa en APIs REST.
      * - Configura CORS para permitir peticiones desde el frontend.
      * - Define que no se usan sesiones (stateless).
-     * - Permite el acceso público a login y registro.
+     * - Permite el acceso público a login, registro y renovación del token.
      * - El resto de endpoints requieren autenticación.
      * - Los permisos por rol se asignan en los controladores con @PreAuthorize.
      */
@@ -54,39 +49,26 @@ public class SecurityConfig {
                 .cors(cors -> cors.configurationSource(corsConfigurationSource())) // Aplica la configuración CORS definida abajo
                 .sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.STATELESS)) // No se usan sesiones, cada petición se valida por sí sola
                 .authorizeHttpRequests(auth -> auth
-                        // Permite el acceso sin autenticación a los endpoints de login y registro
-                        .requestMatchers("/auth/login", "/auth/register").permitAll()
+                        // Los re-despachos ASYNC (endpoints que devuelven Mono) ya fueron autorizados en el REQUEST original
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                        // Permite el acceso sin autenticación a los endpoints de login, registro y renovación del token
+                        .requestMatchers("/auth/login", "/auth/register", "/auth/refresh").permitAll()
+                        // Claves públicas para que otros servicios verifiquen los tokens
+                        .requestMatchers("/.well-known/jwks.json").permitAll()
+                        // Sonda de salud pública (solo UP/DOWN)
+                        .requestMatchers("/actuator/health").permitAll()
+                        // Métricas (rutas, usuarios limitados, estado de los microservicios): solo ADMIN o el scraper de monitorización
+                        .requestMatchers("/actuator/prometheus", "/actuator/metrics/**").hasAnyRole("ADMIN", "MONITORING")
                         // El resto de endpoints requieren autenticación
                         .anyRequest().authenticated()
                 )
-                // Usa el proveedor de autenticación definido abajo
-                .authenticationProvider(authenticationProvider())
                 // Agrega el filtro JWT antes del filtro estándar de usuario/contraseña
                 .addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class)
+                // Limita las peticiones con el usuario ya autenticado (429 si se supera el cupo)
+                .addFilterAfter(rateLimitFilter, JwtAuthFilter.class)
                 .build(); // Construye y retorna la cadena de filtros
     }
 
-    /**
-     * Define el proveedor de autenticación.
-     * Este proveedor usa el servicio de usuarios y el codificador de contraseñas para validar credenciales.
-     */
-    @Bean
-    AuthenticationProvider authenticationProvider() {
-        DaoAuthenticationProvider provider = new DaoAuthenticationProvider(); // Proveedor que usa la base de datos para autenticar
-        provider.setUserDetailsService(uds); // Usa el servicio para obtener los datos del usuario
-        provider.setPasswordEncoder(encoder); // Usa el codificador para verificar la contraseña
-        return provider; // Retorna el proveedor configurado
-    }
-
-    /**
-     * Define el manager de autenticación.
-     * El manager usa el proveedor de autenticación para procesar los intentos de login.
-     */
-    @Bean
-    AuthenticationManager authenticationManager() {
-        return new ProviderManager(authenticationProvider()); // Usa el proveedor definido arriba
-    }
-
     /**
      * Configura CORS para permitir peticiones desde el frontend (por ejemplo, React o Angular).
      * Aquí se definen los orígenes, métodos y cabeceras permitidas.
@@ -0,0 +1,25 @@
+package com.autenticacion.GenoSentinelAuth.config;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Perfil fast-startup: limita spring.main.lazy-initialization a los beans de springdoc/Swagger.
+ * La documentación solo se usa en desarrollo y no debe retrasar el arranque de cada pod;
+ * el resto de beans (seguridad, JPA, gateway) se siguen creando al arrancar, para que los errores
+ * de configuración aparezcan antes de recibir tráfico y la primera petición no pague su creación.
+ */
+@Configuration
+@Profile("fast-startup")
+public class FastStartupConfig {
+
+    private static final String SPRINGDOC_PACKAGE = "org.springdoc.";
+
+    @Bean
+    public static LazyInitializationExcludeFilter onlySpringdocIsLazy() {
+        return (beanName, beanDefinition, beanType) -> beanType == null
+                || !beanType.getName().startsWith(SPRINGDOC_PACKAGE);
+    }
+}
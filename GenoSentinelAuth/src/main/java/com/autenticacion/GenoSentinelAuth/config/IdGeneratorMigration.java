@@ -0,0 +1,73 @@
+package com.autenticacion.GenoSentinelAuth.config;
+
+import com.autenticacion.GenoSentinelAuth.models.entities.Users;
+import jakarta.persistence.TableGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Migración de los ids de users a id_generators (Users usa @TableGenerator en vez de AUTO_INCREMENT).
+ * Al arrancar (con el resto de beans ya creados, antes de que el servidor acepte peticiones) crea la
+ * tabla si falta, añade la fila de users si no existe y sube next_val a MAX(users.id) + allocationSize si está por debajo. Así una base de datos creada con
+ * la versión anterior de BASE_FINAL_AUTH.sql, o con usuarios insertados a mano con AUTO_INCREMENT,
+ * no reparte ids que ya existen. Solo sube el valor, nunca lo baja: se puede ejecutar con otras
+ * instancias en marcha. Se desactiva con persistence.id-generators.migrate=false; se lee en ejecución y
+ * no como condición del bean porque el AOT del perfil fast-startup fija las condiciones en el build y
+ * su ejecución de entrenamiento CDS arranca sin base de datos.
+ */
+@Component
+public class IdGeneratorMigration implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(IdGeneratorMigration.class);
+
+    private final JdbcTemplate jdbc;
+    private final TableGenerator generator;
+    private final boolean enabled;
+
+    public IdGeneratorMigration(DataSource dataSource,
+                                @Value("${persistence.id-generators.migrate:true}") boolean enabled) throws NoSuchFieldException {
+        this.jdbc = new JdbcTemplate(dataSource);
+        this.enabled = enabled;
+        // Tabla, fila y tamaño de bloque salen de la propia entidad para que no se desalineen
+        this.generator = Users.class.getDeclaredField("id").getAnnotation(TableGenerator.class);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!enabled) {
+            return;
+        }
+        String table = generator.table();
+        String name = generator.pkColumnName();
+        String value = generator.valueColumnName();
+        String row = generator.pkColumnValue();
+
+        jdbc.execute("CREATE TABLE IF NOT EXISTS " + table + " ("
+                + name + " VARCHAR(64) NOT NULL, " + value + " BIGINT NOT NULL, PRIMARY KEY (" + name + "))");
+
+        // next_val es el último id del siguiente bloque que reparte Hibernate (optimizador pooled)
+        Long maxId = jdbc.queryForObject("SELECT COALESCE(MAX(id), 0) FROM users", Long.class);
+        long minimum = maxId + generator.allocationSize();
+        try {
+            if (jdbc.update("INSERT INTO " + table + " (" + name + ", " + value + ") SELECT ?, ? FROM " + table
+                    + " WHERE " + name + " = ? HAVING COUNT(*) = 0", row, minimum, row) > 0) {
+                log.info("{}.{} for '{}' seeded with {} (MAX(users.id) = {})", table, value, row, minimum, maxId);
+                return;
+            }
+        } catch (DuplicateKeyException e) {
+            // Otra instancia la insertó a la vez; el UPDATE de abajo la deja al menos en el mínimo
+        }
+        int raised = jdbc.update("UPDATE " + table + " SET " + value + " = ? WHERE " + name + " = ? AND " + value + " < ?",
+                minimum, row, minimum);
+        if (raised > 0) {
+            log.warn("{}.{} for '{}' was behind MAX(users.id) = {}; raised to {}", table, value, row, maxId, minimum);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.autenticacion.GenoSentinelAuth.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Registro de consultas lentas de la base de datos (ver SlowQueryLog).
+ * Envuelve el DataSource para medir cada sentencia y añade a los repositorios JPA un interceptor
+ * que anota qué método del repositorio la originó. Se configura con persistence.slow-query.*
+ * (enabled, threshold, sample-rate, queue-capacity, max-sql-length).
+ */
+@Configuration
+@ConditionalOnProperty(name = "persistence.slow-query.enabled", havingValue = "true", matchIfMissing = true)
+public class PersistenceConfig {
+
+    @Bean
+    public SlowQueryLog slowQueryLog(Environment env, MeterRegistry registry) {
+        String prefix = "persistence.slow-query.";
+        return new SlowQueryLog(
+                env.getProperty(prefix + "threshold", Duration.class, Duration.ofMillis(200)),
+                env.getProperty(prefix + "sample-rate", Double.class, 1.0),
+                env.getProperty(prefix + "queue-capacity", Integer.class, 1000),
+                env.getProperty(prefix + "max-sql-length", Integer.class, 1000),
+                registry
+        );
+    }
+
+    // Static: los BeanPostProcessor se crean antes que el resto de beans
+    @Bean
+    public static BeanPostProcessor slowQueryDataSourcePostProcessor(ObjectProvider<SlowQueryLog> slowQueryLog) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof SlowQueryDataSource)) {
+                    return new SlowQueryDataSource(dataSource, slowQueryLog.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public static BeanPostProcessor slowQueryRepositoryPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxy, repository) -> proxy.addAdvice(
+                                    SlowQueryLog.repositoryInterceptor(repository.getRepositoryInterface().getSimpleName()))));
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,87 @@
+package com.autenticacion.GenoSentinelAuth.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+
+/**
+ * DataSource que mide cada ejecución de sentencia (execute*, executeBatch) y se la pasa a SlowQueryLog.
+ * Envuelve el pool (Hikari) sin sustituirlo: unwrap y las métricas del pool siguen viendo el original.
+ */
+public class SlowQueryDataSource extends DelegatingDataSource {
+
+    private final SlowQueryLog slowQueryLog;
+
+    public SlowQueryDataSource(DataSource target, SlowQueryLog slowQueryLog) {
+        super(target);
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return connection(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return connection(super.getConnection(username, password));
+    }
+
+    private Connection connection(Connection target) {
+        return proxy(Connection.class, target, (proxy, method, args) -> {
+            Object result = invoke(target, method, args);
+            // prepareStatement / prepareCall(sql, ...): el SQL es el primer argumento
+            if (result instanceof CallableStatement statement) {
+                return statement(CallableStatement.class, statement, (String) args[0]);
+            }
+            if (result instanceof PreparedStatement statement) {
+                return statement(PreparedStatement.class, statement, (String) args[0]);
+            }
+            if (result instanceof Statement statement) {
+                return statement(Statement.class, statement, null);
+            }
+            return result;
+        });
+    }
+
+    private <T extends Statement> T statement(Class<T> type, T target, String preparedSql) {
+        return proxy(type, target, (proxy, method, args) -> {
+            if (!method.getName().startsWith("execute")) {
+                return invoke(target, method, args);
+            }
+            long start = System.nanoTime();
+            try {
+                return invoke(target, method, args);
+            } finally {
+                // Statement.execute(sql): el SQL viene en la llamada
+                String sql = preparedSql != null ? preparedSql
+                        : args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+                slowQueryLog.record(sql, System.nanoTime() - start);
+            }
+        });
+    }
+
+    private static <T> T proxy(Class<T> type, T target, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(SlowQueryDataSource.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> switch (method.getName()) {
+                    // unwrap / isWrapperFor e igualdad se resuelven sobre el objeto real
+                    case "unwrap", "isWrapperFor" -> invoke(target, method, args);
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    default -> handler.invoke(proxy, method, args);
+                }));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
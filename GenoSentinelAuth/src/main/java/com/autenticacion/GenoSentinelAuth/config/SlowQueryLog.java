@@ -0,0 +1,130 @@
+package com.autenticacion.GenoSentinelAuth.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registro de consultas SQL lentas (sustituye a spring.jpa.show-sql).
+ * Solo se registran las sentencias que superan persistence.slow-query.threshold, y de ellas
+ * una fracción persistence.slow-query.sample-rate. El log se escribe en un hilo propio con cola
+ * acotada: la petición que hizo la consulta no espera a la escritura y, si la cola se llena,
+ * la entrada se descarta (métrica db.queries.slow.dropped).
+ * Cada entrada lleva el texto SQL (sin parámetros), la duración y el método que la originó:
+ * el método del repositorio (p. ej. UsersRepository.findByUsername) o, para las sentencias que
+ * se ejecutan en el flush/commit, el primer método de la aplicación en la pila.
+ */
+public class SlowQueryLog implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(SlowQueryLog.class);
+
+    private static final String APP_PACKAGE = "com.autenticacion.GenoSentinelAuth.";
+    private static final String CONFIG_PACKAGE = APP_PACKAGE + "config.";
+
+    // Método del repositorio que se está ejecutando en este hilo (lo fija repositoryInterceptor)
+    private static final ThreadLocal<String> CURRENT_REPOSITORY_METHOD = new ThreadLocal<>();
+
+    private final long thresholdNanos;
+    private final double sampleRate;
+    private final int maxSqlLength;
+    private final ThreadPoolExecutor writer;
+    private final MeterRegistry registry;
+    private final Counter dropped;
+
+    /**
+     * @param threshold duración a partir de la cual una sentencia se considera lenta
+     * @param sampleRate fracción de las sentencias lentas que se registran (0..1)
+     * @param queueCapacity entradas pendientes de escribir antes de descartar
+     * @param maxSqlLength caracteres del SQL que se incluyen en el log
+     * @param registry registro de métricas
+     */
+    public SlowQueryLog(Duration threshold, double sampleRate, int queueCapacity, int maxSqlLength,
+                        MeterRegistry registry) {
+        this.thresholdNanos = threshold.toNanos();
+        this.sampleRate = sampleRate;
+        this.maxSqlLength = maxSqlLength;
+        this.registry = registry;
+        this.dropped = Counter.builder("db.queries.slow.dropped")
+                .description("Consultas lentas no registradas porque la cola del log estaba llena")
+                .register(registry);
+        this.writer = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "slow-query-log");
+                    t.setDaemon(true);
+                    return t;
+                },
+                (r, executor) -> dropped.increment());
+    }
+
+    /**
+     * Registra la sentencia si superó el umbral (y entra en la muestra).
+     * @param sql texto de la sentencia
+     * @param nanos duración de la ejecución
+     */
+    public void record(String sql, long nanos) {
+        if (nanos < thresholdNanos) {
+            return;
+        }
+        String caller = caller();
+        Counter.builder("db.queries.slow")
+                .description("Sentencias SQL que superaron persistence.slow-query.threshold")
+                .tag("caller", caller)
+                .register(registry)
+                .increment();
+        if (sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return;
+        }
+        String text = sql == null ? "" : sql.length() > maxSqlLength ? sql.substring(0, maxSqlLength) + "..." : sql;
+        long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        writer.execute(() -> log.warn("Slow query: {} ms in {}: {}", millis, caller, text));
+    }
+
+    /**
+     * Interceptor que se añade a los repositorios JPA para saber qué método originó cada sentencia.
+     * @param repository nombre del repositorio (p. ej. UsersRepository)
+     */
+    public static MethodInterceptor repositoryInterceptor(String repository) {
+        return invocation -> {
+            String previous = CURRENT_REPOSITORY_METHOD.get();
+            CURRENT_REPOSITORY_METHOD.set(repository + "." + invocation.getMethod().getName());
+            try {
+                return invocation.proceed();
+            } finally {
+                if (previous == null) {
+                    CURRENT_REPOSITORY_METHOD.remove();
+                } else {
+                    CURRENT_REPOSITORY_METHOD.set(previous);
+                }
+            }
+        };
+    }
+
+    // Solo se calcula para las sentencias lentas, así que recorrer la pila no afecta al caso normal
+    private static String caller() {
+        String repositoryMethod = CURRENT_REPOSITORY_METHOD.get();
+        if (repositoryMethod != null) {
+            return repositoryMethod;
+        }
+        Optional<StackWalker.StackFrame> frame = StackWalker.getInstance().walk(frames -> frames
+                .filter(f -> f.getClassName().startsWith(APP_PACKAGE) && !f.getClassName().startsWith(CONFIG_PACKAGE))
+                .findFirst());
+        return frame.map(f -> f.getClassName().substring(f.getClassName().lastIndexOf('.') + 1) + "." + f.getMethodName())
+                .orElse("unknown");
+    }
+
+    @Override
+    public void destroy() {
+        writer.shutdown();
+    }
+}
@@ -0,0 +1,54 @@
+package com.autenticacion.GenoSentinelAuth.config;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Registro de los microservicios a los que llama el gateway.
+ * Cada uno tiene su propio WebClient y su propio pool de conexiones, de modo que un
+ * microservicio lento solo agota sus conexiones y no las de los demás.
+ */
+public class UpstreamClients implements DisposableBean {
+
+    /**
+     * Microservicio destino: nombre lógico (usado en propiedades y métricas), URL base y cliente HTTP.
+     */
+    public record Upstream(String name, String baseUrl, WebClient client, ConnectionProvider pool) {
+    }
+
+    private final List<Upstream> upstreams;
+
+    public UpstreamClients(List<Upstream> upstreams) {
+        // Ordena por URL más larga primero para que gane el prefijo más específico
+        this.upstreams = upstreams.stream()
+                .sorted(Comparator.comparingInt((Upstream u) -> u.baseUrl().length()).reversed())
+                .toList();
+    }
+
+    /**
+     * Devuelve el microservicio al que pertenece una URL absoluta.
+     * @param url URL completa construida por los controladores del gateway
+     * @return microservicio cuya URL base es prefijo de la URL
+     */
+    public Upstream forUrl(String url) {
+        for (Upstream upstream : upstreams) {
+            if (url.startsWith(upstream.baseUrl())) {
+                return upstream;
+            }
+        }
+        throw new IllegalArgumentException("No upstream configured for " + url);
+    }
+
+    public List<Upstream> all() {
+        return upstreams;
+    }
+
+    @Override
+    public void destroy() {
+        upstreams.forEach(u -> u.pool().dispose());
+    }
+}
@@ -0,0 +1,24 @@
+package com.autenticacion.GenoSentinelAuth.config;
+
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.util.function.Predicate;
+
+/**
+ * Decide qué errores cuentan como fallo para el circuit breaker de un microservicio.
+ * Un 4xx es un error del cliente (el microservicio respondió bien): cuenta como llamada correcta.
+ * Se referencia desde resilience4j.circuitbreaker.configs.default.record-failure-predicate.
+ * Un bulkhead lleno no llega aquí: BulkheadFullException está en ignore-exceptions, de modo que
+ * el rechazo local no entra en la ventana (si contara como éxito, los rechazos mientras el
+ * microservicio está colgado mantendrían la tasa de fallos bajo el umbral y el circuito no se abriría).
+ */
+public class UpstreamFailurePredicate implements Predicate<Throwable> {
+
+    @Override
+    public boolean test(Throwable e) {
+        if (e instanceof WebClientResponseException response) {
+            return !response.getStatusCode().is4xxClientError();
+        }
+        return true;
+    }
+}
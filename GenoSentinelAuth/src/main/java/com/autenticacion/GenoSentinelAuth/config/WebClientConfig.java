@@ -1,14 +1,67 @@
 package com.autenticacion.GenoSentinelAuth.config;
 
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Crea un WebClient por microservicio, cada uno con un pool de conexiones propio.
+ * Los límites se configuran por microservicio con propiedades
+ * gateway.upstream.&lt;nombre&gt;.* (por ejemplo gateway.upstream.genomica.max-connections).
+ * Los pools publican métricas reactor.netty.connection.provider.* etiquetadas con su nombre.
+ */
 @Configuration
 public class WebClientConfig {
 
     @Bean
-    public WebClient webClient() {
-        return WebClient.builder().build();
+    public UpstreamClients upstreamClients(Environment env,
+                                           @Value("${microservicio.clinica.url}") String clinicaUrl,
+                                           @Value("${microservicio.genomica.url}") String genomicaUrl) {
+        return new UpstreamClients(List.of(
+                upstream("clinica", clinicaUrl, env),
+                upstream("genomica", genomicaUrl, env)
+        ));
+    }
+
+    private UpstreamClients.Upstream upstream(String name, String baseUrl, Environment env) {
+        String prefix = "gateway.upstream." + name + ".";
+
+        ConnectionProvider pool = ConnectionProvider.builder(name)
+                .maxConnections(env.getProperty(prefix + "max-connections", Integer.class, 100))
+                .pendingAcquireMaxCount(env.getProperty(prefix + "pending-acquire-max-count", Integer.class, 200))
+                .pendingAcquireTimeout(env.getProperty(prefix + "pending-acquire-timeout", Duration.class, Duration.ofSeconds(2)))
+                .maxIdleTime(env.getProperty(prefix + "max-idle-time", Duration.class, Duration.ofSeconds(30)))
+                .maxLifeTime(env.getProperty(prefix + "max-life-time", Duration.class, Duration.ofMinutes(5)))
+                .evictInBackground(env.getProperty(prefix + "evict-in-background", Duration.class, Duration.ofSeconds(30)))
+                .metrics(true)
+                .build();
+
+        Duration connectTimeout = env.getProperty(prefix + "connect-timeout", Duration.class, Duration.ofSeconds(2));
+        HttpClient http = HttpClient.create(pool)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .responseTimeout(env.getProperty(prefix + "response-timeout", Duration.class, Duration.ofSeconds(10)));
+
+        if (env.getProperty(prefix + "http2", Boolean.class, false)) {
+            // h2 sobre TLS (ALPN) para https; h2c con fallback a HTTP/1.1 para http
+            http = baseUrl.startsWith("https")
+                    ? http.secure().protocol(HttpProtocol.H2, HttpProtocol.HTTP11)
+                    : http.protocol(HttpProtocol.H2C, HttpProtocol.HTTP11);
+        }
+
+        WebClient client = WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(http))
+                .build();
+
+        return new UpstreamClients.Upstream(name, baseUrl, client, pool);
     }
-}
\ No newline at end of file
+}
@@ -1,33 +1,137 @@
 package com.autenticacion.GenoSentinelAuth.controller;
 
+import com.autenticacion.GenoSentinelAuth.config.UpstreamClients;
+import com.autenticacion.GenoSentinelAuth.exceptions.UpstreamUnavailableException;
+import com.autenticacion.GenoSentinelAuth.services.RoutePolicies;
+import com.autenticacion.GenoSentinelAuth.services.RoutePolicies.RoutePolicy;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.servlet.HandlerMapping;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.context.Context;
 
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 
 @Component
 @RequiredArgsConstructor
 public class ApiClient {
 
-    private final WebClient webClient;
+    // Ruta sin timeout propio ni hedging (solo el response-timeout del pool)
+    private static final String DEFAULT_ROUTE = "default";
 
-    public String get(String url) {
-        return call(() ->
-                webClient.get()
+    // Clave del contexto de Reactor con la ruta del gateway (etiqueta route de las métricas)
+    private static final String ROUTE_KEY = "gateway.route";
+    private static final String UNKNOWN_ROUTE = "unknown";
+
+    // Cantidad máxima de buffers del microservicio retenidos mientras se copia la respuesta
+    private static final int STREAM_DEMAND = 4;
+
+    private final UpstreamClients upstreams;
+    private final MeterRegistry meterRegistry;
+    private final CircuitBreakerRegistry circuitBreakers;
+    private final BulkheadRegistry bulkheads;
+    private final RoutePolicies routePolicies;
+
+    @Value("${gateway.async.enabled:true}")
+    private boolean asyncEnabled;
+
+    @Value("${gateway.coalesce.enabled:true}")
+    private boolean coalesceEnabled;
+
+    // Pasado el timeout de la petición asíncrona nadie escribirá la respuesta en streaming (ver DataBufferInputStream)
+    @Value("${spring.mvc.async.request-timeout:30s}")
+    private Duration streamAbandonAfter;
+
+    // GETs en curso compartidos por peticiones idénticas (ver coalesce)
+    private final Map<String, Mono<String>> inFlight = new ConcurrentHashMap<>();
+    // Escrituras terminadas por microservicio: forman parte de la clave de coalesce
+    private final Map<String, AtomicLong> writeGenerations = new ConcurrentHashMap<>();
+    private Counter coalesced;
+    // Métricas por microservicio / ruta / método / resultado, creadas al primer uso
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> errorCounters = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void registerMetrics() {
+        coalesced = Counter.builder("gateway.upstream.coalesced")
+                .description("GETs served by joining an identical in-flight upstream call")
+                .register(meterRegistry);
+    }
+
+    public Mono<String> get(String url) {
+        return get(DEFAULT_ROUTE, url);
+    }
+
+    /**
+     * GET con la política de su ruta (ver RoutePolicies): timeout propio por intento y como plazo total,
+     * y hedging opcional. Si el primer intento no respondió tras el retardo del percentil configurado,
+     * se lanza un segundo intento (si el presupuesto de hedges lo permite) y gana el primero en responder con éxito.
+     * @param route nombre de la ruta en gateway.route.&lt;ruta&gt;.*
+     * @param url URL del microservicio
+     */
+    public Mono<String> get(String route, String url) {
+        RoutePolicy policy = routePolicies.forRoute(route);
+        Duration timeout = policy.timeout();
+
+        Supplier<Mono<String>> attempt = () -> Mono.defer(() -> {
+            long start = System.nanoTime();
+            return call(url, "GET", () -> {
+                Mono<String> response = client(url).get()
                         .uri(url)
                         .accept(MediaType.APPLICATION_JSON)
                         .retrieve()
-                        .bodyToMono(String.class)
-        );
+                        .bodyToMono(String.class);
+                return timeout != null ? response.timeout(timeout) : response;
+            }).doOnNext(body -> policy.record(System.nanoTime() - start));
+        });
+
+        Mono<String> request = Mono.defer(() -> hedge(route, policy, attempt));
+        if (timeout != null) {
+            request = request.timeout(timeout, Mono.error(() -> new RuntimeException(
+                    "External microservice error: no response within " + timeout.toMillis() + " ms")));
+        }
+        return coalesceEnabled ? coalesce(url, request) : request;
     }
 
-    public String post(String url, Object requestBody) {
-        return call(() ->
-                webClient.post()
+    public Mono<String> post(String url, Object requestBody) {
+        return call(url, "POST", () ->
+                client(url).post()
                         .uri(url)
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON)
@@ -36,9 +140,9 @@ public class ApiClient {
                         .bodyToMono(String.class)
         );
     }
-    public String patch(String url, Object requestBody) {
-        return call(() ->
-                webClient.post()
+    public Mono<String> patch(String url, Object requestBody) {
+        return call(url, "POST", () ->
+                client(url).post()
                         .uri(url)
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON)
@@ -48,9 +152,9 @@ public class ApiClient {
         );
     }
 
-    public String patch(String url) {
-        return call(() ->
-                webClient.patch()
+    public Mono<String> patch(String url) {
+        return call(url, "PATCH", () ->
+                client(url).patch()
                         .uri(url)
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON)
@@ -59,9 +163,9 @@ public class ApiClient {
         );
     }
 
-    public String put(String url, Object requestBody) {
-        return call(() ->
-                webClient.put()
+    public Mono<String> put(String url, Object requestBody) {
+        return call(url, "PUT", () ->
+                client(url).put()
                         .uri(url)
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON)
@@ -71,24 +175,251 @@ public class ApiClient {
         );
     }
 
-    public String delete(String url) {
-        return call(() ->
-                webClient.delete()
+    public Mono<String> delete(String url) {
+        return call(url, "DELETE", () ->
+                client(url).delete()
                         .uri(url)
                         .retrieve()
                         .bodyToMono(String.class)
         );
     }
 
-    private String call(Supplier<Mono<String>> request) {
+    /**
+     * Proxy en modo streaming: solo espera el status y las cabeceras del microservicio,
+     * y expone el cuerpo como un InputStream que consume los DataBuffers bajo demanda,
+     * sin cargar el JSON completo en memoria. Cada buffer se libera al ser leído.
+     * El cuerpo no se empieza a pedir hasta que Spring escribe la respuesta; si no la escribe
+     * antes de spring.mvc.async.request-timeout, el stream se cierra y la conexión se libera.
+     */
+    public Mono<ResponseEntity<?>> stream(String url) {
+        return call(url, "GET", () ->
+                client(url).get()
+                        .uri(url)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .retrieve()
+                        .toEntityFlux(DataBuffer.class)
+        ).map(upstream -> {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(upstream.getHeaders().getContentType() != null
+                    ? upstream.getHeaders().getContentType()
+                    : MediaType.APPLICATION_JSON);
+            if (upstream.getHeaders().getContentLength() >= 0) {
+                headers.setContentLength(upstream.getHeaders().getContentLength());
+            }
+
+            Flux<DataBuffer> body = upstream.getBody() != null ? upstream.getBody() : Flux.empty();
+            InputStream in = new DataBufferInputStream(body, STREAM_DEMAND, streamAbandonAfter);
+
+            return ResponseEntity.status(upstream.getStatusCode())
+                    .headers(headers)
+                    .body(new InputStreamResource(in));
+        });
+    }
+
+    /**
+     * GET de un listado JSON que se lee elemento a elemento a medida que llegan los buffers, conservando
+     * solo los elementos que cumplen filter. El límite de memoria del códec se aplica a cada elemento y no
+     * al listado completo, de modo que se pueden filtrar listados grandes sin cargarlos enteros en memoria.
+     */
+    public Mono<List<JsonNode>> filterList(String url, Predicate<JsonNode> filter) {
+        return call(url, "GET", () ->
+                client(url).get()
+                        .uri(url)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .retrieve()
+                        .bodyToFlux(JsonNode.class)
+                        .filter(filter)
+                        .collectList()
+        );
+    }
+
+    /**
+     * Entrega la respuesta de un endpoint del gateway según el modo de ejecución.
+     * En modo asíncrono se devuelve el Mono tal cual y ningún hilo de Tomcat queda esperando la red;
+     * en modo bloqueante (gateway.async.enabled=false) se resuelve en el hilo de la petición, como antes.
+     * Guarda en el contexto de Reactor la ruta del gateway (patrón de la petición) para etiquetar las métricas de call.
+     */
+    public <T> Mono<T> dispatch(Mono<T> response) {
+        response = response.contextWrite(Context.of(ROUTE_KEY, currentRoute()));
+        if (asyncEnabled) {
+            return response;
+        }
         try {
-            return request.get()
-                    .onErrorResume(e -> Mono.error(
-                            new RuntimeException("External microservice error: " + e.getMessage())
-                    ))
-                    .block();
+            return Mono.justOrEmpty(response.block());
         } catch (Exception e) {
-            throw new RuntimeException("Error contacting microservice: " + e.getMessage(), e);
+            return Mono.error(e);
+        }
+    }
+
+    private Mono<String> hedge(String route, RoutePolicy policy, Supplier<Mono<String>> attempt) {
+        Duration delay = policy.hedgeDelay();
+        if (delay == null) {
+            return attempt.get();
+        }
+        return hedged(attempt.get(), delay, () -> {
+            if (!policy.tryAcquireHedge()) {
+                return Mono.empty();
+            }
+            meterRegistry.counter("gateway.upstream.hedges", "route", route).increment();
+            return attempt.get();
+        });
+    }
+
+    /**
+     * Lanza el respaldo si el primer intento sigue en curso tras delay, y gana el primero que responda con éxito:
+     * el error de un intento (bulkhead lleno, circuito abierto, 5xx rápido) no cancela al otro.
+     * Solo se falla si fallan los dos, con el error del primer intento. Si el primero termina antes del
+     * retardo, el respaldo ya no se lanza; un respaldo vacío (sin presupuesto) deja solo al primero.
+     */
+    static <T> Mono<T> hedged(Mono<T> primary, Duration delay, Supplier<Mono<T>> backup) {
+        return Mono.defer(() -> {
+            Sinks.One<Boolean> primaryDone = Sinks.one();
+            Mono<T> first = primary.doOnTerminate(() -> primaryDone.tryEmitValue(Boolean.TRUE));
+            Mono<T> second = Mono.delay(delay)
+                    .takeUntilOther(primaryDone.asMono())
+                    .flatMap(tick -> backup.get());
+            return Mono.firstWithValue(first, second)
+                    .onErrorResume(NoSuchElementException.class, e -> {
+                        // Ningún intento emitió valor: los errores vienen en el orden de los intentos
+                        if (e.getCause() == null) {
+                            return Mono.error(e);
+                        }
+                        Throwable primaryError = Exceptions.unwrapMultiple(e.getCause()).get(0);
+                        return primaryError instanceof NoSuchElementException ? Mono.empty() : Mono.error(primaryError);
+                    });
+        });
+    }
+
+    /**
+     * Single-flight: peticiones idénticas simultáneas comparten una sola llamada al microservicio.
+     * La clave es la URL (el gateway no reenvía cabeceras por usuario al microservicio) más la generación
+     * de escrituras de su microservicio: un GET que llega después de que termine un POST/PATCH/PUT/DELETE
+     * no se une a una llamada que empezó antes de la escritura (y que podría devolver, y dejar en
+     * GatewayResponseCache, los datos anteriores). La entrada se elimina en cuanto la llamada termina,
+     * así que solo reciben la respuesta quienes llegaron mientras estaba en curso.
+     */
+    private Mono<String> coalesce(String url, Mono<String> request) {
+        return Mono.defer(() -> {
+            String key = "GET " + url + " #" + writeGeneration(upstreams.forUrl(url).name()).get();
+            Mono<String> shared = inFlight.get(key);
+            if (shared != null) {
+                coalesced.increment();
+                return shared;
+            }
+            return inFlight.computeIfAbsent(key, k -> request
+                    .doFinally(signal -> inFlight.remove(k))
+                    .cache());
+        });
+    }
+
+    private AtomicLong writeGeneration(String upstream) {
+        return writeGenerations.computeIfAbsent(upstream, u -> new AtomicLong());
+    }
+
+    // Cada microservicio tiene su propio WebClient y pool de conexiones
+    private WebClient client(String url) {
+        return upstreams.forUrl(url).client();
+    }
+
+    /**
+     * Ejecuta la llamada protegida por el bulkhead y el circuit breaker de su microservicio.
+     * Con el circuito abierto o el bulkhead lleno la llamada se rechaza sin tocar la red.
+     * Cada llamada se mide en gateway.upstream.requests (upstream, route, method, outcome) y
+     * cada fallo se cuenta en gateway.upstream.errors (upstream, route, cause).
+     * Las escrituras avanzan la generación de su microservicio al terminar (antes de que la respuesta
+     * siga hacia el cliente), para que los GETs posteriores no se unan a uno anterior (ver coalesce).
+     */
+    private <T> Mono<T> call(String url, String method, Supplier<Mono<T>> request) {
+        String upstream = upstreams.forUrl(url).name();
+        Mono<T> call = Mono.deferContextual(ctx -> {
+                    String route = ctx.getOrDefault(ROUTE_KEY, UNKNOWN_ROUTE);
+                    long start = System.nanoTime();
+                    return Mono.defer(request)
+                            .transformDeferred(BulkheadOperator.of(bulkheads.bulkhead(upstream)))
+                            .transformDeferred(CircuitBreakerOperator.of(circuitBreakers.circuitBreaker(upstream)))
+                            .doOnSuccess(value -> record(upstream, route, method, "SUCCESS", start))
+                            .doOnError(e -> {
+                                record(upstream, route, method, outcome(e), start);
+                                errorCounter(upstream, route, cause(e)).increment();
+                            })
+                            .doOnCancel(() -> record(upstream, route, method, "CANCELLED", start));
+                });
+        if (!"GET".equals(method)) {
+            Runnable written = () -> writeGeneration(upstream).incrementAndGet();
+            call = call.doOnTerminate(written).doOnCancel(written);
+        }
+        return call
+                .onErrorMap(e -> e instanceof CallNotPermittedException || e instanceof BulkheadFullException
+                        ? new UpstreamUnavailableException("Microservice " + upstream + " unavailable: " + e.getMessage(), e)
+                        : new RuntimeException("External microservice error: " + e.getMessage(), e));
+    }
+
+    // -------------------------------
+    // Métricas
+    // -------------------------------
+
+    private void record(String upstream, String route, String method, String outcome, long start) {
+        String key = upstream + ' ' + route + ' ' + method + ' ' + outcome;
+        // Los Timer se reutilizan: registrar uno por llamada costaría una búsqueda con Meter.Id nuevo cada vez
+        timers.computeIfAbsent(key, k -> Timer.builder("gateway.upstream.requests")
+                        .description("Latencia de las llamadas a los microservicios")
+                        .tag("upstream", upstream)
+                        .tag("route", route)
+                        .tag("method", method)
+                        .tag("outcome", outcome)
+                        .register(meterRegistry))
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private Counter errorCounter(String upstream, String route, String cause) {
+        return errorCounters.computeIfAbsent(upstream + ' ' + route + ' ' + cause, k -> Counter.builder("gateway.upstream.errors")
+                .description("Fallos de las llamadas a los microservicios por causa")
+                .tag("upstream", upstream)
+                .tag("route", route)
+                .tag("cause", cause)
+                .register(meterRegistry));
+    }
+
+    private static String outcome(Throwable e) {
+        if (e instanceof WebClientResponseException response) {
+            return response.getStatusCode().is4xxClientError() ? "CLIENT_ERROR" : "SERVER_ERROR";
+        }
+        if (e instanceof TimeoutException) {
+            return "TIMEOUT";
+        }
+        if (e instanceof CallNotPermittedException || e instanceof BulkheadFullException) {
+            return "REJECTED";
+        }
+        if (e instanceof WebClientRequestException) {
+            return "CONNECTION_ERROR";
+        }
+        return "ERROR";
+    }
+
+    // Causa con cardinalidad acotada: status HTTP, rechazo local o tipo de la excepción de red
+    private static String cause(Throwable e) {
+        if (e instanceof WebClientResponseException response) {
+            return "http_" + response.getStatusCode().value();
+        }
+        if (e instanceof TimeoutException) {
+            return "timeout";
+        }
+        if (e instanceof CallNotPermittedException) {
+            return "circuit_open";
+        }
+        if (e instanceof BulkheadFullException) {
+            return "bulkhead_full";
+        }
+        Throwable root = e instanceof WebClientRequestException && e.getCause() != null ? e.getCause() : e;
+        return root.getClass().getSimpleName();
+    }
+
+    // Patrón de la ruta del gateway que atiende la petición actual (p. ej. /gateway/patients/{idPatient}/view)
+    private static String currentRoute() {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes
+                && attributes.getRequest().getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE) instanceof String pattern) {
+            return pattern;
         }
+        return UNKNOWN_ROUTE;
     }
-}
\ No newline at end of file
+}
@@ -2,16 +2,21 @@ package com.autenticacion.GenoSentinelAuth.controller;
 
 import com.autenticacion.GenoSentinelAuth.exceptions.InvalidEmailException;
 import com.autenticacion.GenoSentinelAuth.exceptions.InvalidInputException;
+import com.autenticacion.GenoSentinelAuth.exceptions.UserAlreadyExistsException;
 import com.autenticacion.GenoSentinelAuth.exceptions.UserNotFoundException;
 import com.autenticacion.GenoSentinelAuth.exceptions.IncorrectPasswordException;
+import com.autenticacion.GenoSentinelAuth.exceptions.InvalidRefreshTokenException;
+import com.autenticacion.GenoSentinelAuth.exceptions.ServiceBusyException;
 
 import com.autenticacion.GenoSentinelAuth.models.dto.RegisterRequest;
 import com.autenticacion.GenoSentinelAuth.models.entities.Role;
 import com.autenticacion.GenoSentinelAuth.models.entities.Users;
-import com.autenticacion.GenoSentinelAuth.repositories.RoleRepository;
 import com.autenticacion.GenoSentinelAuth.repositories.UsersRepository;
 
 import com.autenticacion.GenoSentinelAuth.services.JwtService;
+import com.autenticacion.GenoSentinelAuth.services.RefreshTokenService;
+import com.autenticacion.GenoSentinelAuth.services.UserCacheService;
+import com.autenticacion.GenoSentinelAuth.services.UserCacheService.CachedUser;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -20,9 +25,8 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
@@ -35,9 +39,9 @@ import java.util.Map;
 @Tag(name = "Authentication", description = "Endpoints para autenticación y registro de usuarios")
 public class AuthController {
 
-    private final AuthenticationManager authManager;
     private final UsersRepository usuarioRepo;
-    private final RoleRepository rolRepo;
+    private final UserCacheService userCache;
+    private final RefreshTokenService refreshTokens;
     private final JwtService jwt;
     private final PasswordEncoder passwordEncoder;
 
@@ -54,7 +58,8 @@ public class AuthController {
             @ApiResponse(responseCode = "200", description = "Inicio de sesión exitoso"),
             @ApiResponse(responseCode = "400", description = "Entrada inválida", content = @Content),
             @ApiResponse(responseCode = "401", description = "Credenciales incorrectas", content = @Content),
-            @ApiResponse(responseCode = "404", description = "Usuario no encontrado", content = @Content)
+            @ApiResponse(responseCode = "404", description = "Usuario no encontrado", content = @Content),
+            @ApiResponse(responseCode = "503", description = "Demasiados logins en curso, reintentar tras Retry-After", content = @Content)
     })
     @PostMapping("/login")
     public Map<String, Object> login(@RequestBody Map<String, String> req) {
@@ -75,29 +80,22 @@ public class AuthController {
             throw new InvalidInputException("Password cannot be empty");
         }
 
-        Users user = usuarioRepo.findByUsername(username)
+        CachedUser user = userCache.findByUsername(username)
                 .orElseThrow(() -> new UserNotFoundException("User " + username + " not found"));
 
-        if (!email.equals(user.getEmail())) {
+        if (!email.equals(user.email())) {
             throw new InvalidEmailException("Email does not match registered account");
         }
 
-        try {
-            authManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(username, password)
-            );
-        } catch (Exception e) {
+        // Verifica la contraseña contra el usuario ya cargado (sin volver a consultarlo).
+        // Una cuenta desactivada recibe el mismo error, y solo tras comprobar la contraseña,
+        // para no revelar su estado a quien no la conoce
+        if (!passwordEncoder.matches(password, user.passwordHash()) || !user.enabled()) {
             throw new IncorrectPasswordException("Incorrect password");
         }
+        rehashIfNeeded(user, password);
 
-        List<String> roles = List.of(user.getRole().getName());
-        String token = jwt.generate(user.getUsername(), roles);
-
-        return Map.of(
-                "access_token", token,
-                "token_type", "Bearer",
-                "roles", roles
-        );
+        return tokenResponse(user.username(), user.role(), refreshTokens.issue(user.id()));
     }
 
     // ------------------------------
@@ -111,7 +109,9 @@ public class AuthController {
     @ApiResponses({
             @ApiResponse(responseCode = "201", description = "Usuario creado correctamente"),
             @ApiResponse(responseCode = "400", description = "Entrada inválida", content = @Content),
-            @ApiResponse(responseCode = "404", description = "Rol USER no encontrado", content = @Content)
+            @ApiResponse(responseCode = "404", description = "Rol USER no encontrado", content = @Content),
+            @ApiResponse(responseCode = "409", description = "Username o email ya registrados", content = @Content),
+            @ApiResponse(responseCode = "503", description = "Demasiados registros en curso, reintentar tras Retry-After", content = @Content)
     })
     @PostMapping("/register")
     @ResponseStatus(HttpStatus.CREATED)
@@ -129,11 +129,7 @@ public class AuthController {
             throw new InvalidInputException("Email cannot be empty");
         }
 
-        if (usuarioRepo.findByUsername(req.getUsername()).isPresent()) {
-            throw new InvalidInputException("Username already exists");
-        }
-
-        Role roleUser = rolRepo.findByName("USER")
+        Role roleUser = userCache.findRole("USER")
                 .orElseThrow(() -> new UserNotFoundException("Role USER not found"));
 
         Users user = new Users();
@@ -142,23 +138,78 @@ public class AuthController {
         user.setPassword(passwordEncoder.encode(req.getPassword()));
         user.setRole(roleUser);
 
-        usuarioRepo.save(user);
+        // Inserta directamente: la unicidad de username y email la garantiza la base de datos
+        try {
+            usuarioRepo.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            // Solo la clave única de username/email es un 409; NOT NULL, FK, longitud... se propagan
+            UserAlreadyExistsException duplicate = UserAlreadyExistsException.from(e);
+            if (duplicate == null) {
+                throw e;
+            }
+            throw duplicate;
+        }
+
+        return tokenResponse(user.getUsername(), roleUser.getName(), refreshTokens.issue(user.getId()));
+    }
 
-        List<String> roles = List.of(roleUser.getName());
-        String token = jwt.generate(user.getUsername(), roles);
+    // ------------------------------
+    // REFRESH
+    // ------------------------------
+
+    @Operation(
+            summary = "Renovar el token",
+            description = "Cambia un refresh token por un JWT nuevo y otro refresh token, sin volver a enviar la contraseña. "
+                    + "Cada refresh token solo se puede usar una vez."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Token renovado"),
+            @ApiResponse(responseCode = "400", description = "Entrada inválida", content = @Content),
+            @ApiResponse(responseCode = "401", description = "Refresh token inválido, usado o expirado", content = @Content)
+    })
+    @PostMapping("/refresh")
+    public Map<String, Object> refresh(@RequestBody Map<String, String> req) {
+
+        String refreshToken = req.get("refresh_token");
+
+        if (refreshToken == null || refreshToken.trim().isEmpty()) {
+            throw new InvalidInputException("Refresh token cannot be empty");
+        }
+
+        RefreshTokenService.Rotation rotation = refreshTokens.rotate(refreshToken);
+        Users user = rotation.user();
+        return tokenResponse(user.getUsername(), user.getRole().getName(), rotation.refreshToken());
+    }
+
+    // Respuesta común de login, registro y refresh
+    private Map<String, Object> tokenResponse(String username, String role, String refreshToken) {
+        List<String> roles = List.of(role);
+        String token = jwt.generate(username, roles);
 
         return Map.of(
                 "access_token", token,
+                "refresh_token", refreshToken,
                 "token_type", "Bearer",
                 "roles", roles
         );
     }
 
-
-    // Manejador de errores de autenticación
-    @ResponseStatus(HttpStatus.UNAUTHORIZED)
-    @ExceptionHandler(org.springframework.security.core.AuthenticationException.class)
-    public Map<String, String> onAuthError(Exception e) {
-        return Map.of("error", "Bad credentials");
+    // Recalcula el hash si se hizo con otro coste BCrypt; si el pool de hashing está saturado se deja para el siguiente login.
+    // Se recarga el usuario por id y solo se actualiza si su hash sigue siendo el verificado (no pisa un cambio de contraseña).
+    private void rehashIfNeeded(CachedUser user, String password) {
+        if (!passwordEncoder.upgradeEncoding(user.passwordHash())) {
+            return;
+        }
+        try {
+            String rehashed = passwordEncoder.encode(password);
+            usuarioRepo.findById(user.id())
+                    .filter(current -> current.getPassword().equals(user.passwordHash()))
+                    .ifPresent(current -> {
+                        current.setPassword(rehashed);
+                        usuarioRepo.save(current);
+                    });
+        } catch (ServiceBusyException ignored) {
+            // El login ya es válido; no se rechaza por no poder re-hashear
+        }
     }
 }
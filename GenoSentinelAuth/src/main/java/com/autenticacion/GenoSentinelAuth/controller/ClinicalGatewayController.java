@@ -3,6 +3,8 @@ package com.autenticacion.GenoSentinelAuth.controller;
 import com.autenticacion.GenoSentinelAuth.models.dto.CreateClinicalRecordInDto;
 import com.autenticacion.GenoSentinelAuth.models.dto.CreatePatientInDto;
 import com.autenticacion.GenoSentinelAuth.models.dto.CreateTumorTypeInDto;
+import com.autenticacion.GenoSentinelAuth.exceptions.UpstreamUnavailableException;
+import com.autenticacion.GenoSentinelAuth.services.GatewayResponseCache;
 import com.autenticacion.GenoSentinelAuth.services.JwtService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -14,6 +16,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 
 import java.util.Map;
 
@@ -25,6 +28,7 @@ public class ClinicalGatewayController {
 
     private final JwtService jwt;
     private final ApiClient apiClient;
+    private final GatewayResponseCache responseCache;
 
     @Value("${microservicio.clinica.url}")
     private String clinicaUrl;
@@ -38,7 +42,25 @@ public class ClinicalGatewayController {
                 .body(body);
     }
 
-    private ResponseEntity<?> error(Exception e) {
+    private Mono<ResponseEntity<?>> respond(Mono<String> upstream) {
+        return relay(upstream.map(this::success));
+    }
+
+    // Convierte cualquier fallo del microservicio en un 502 sin bloquear el hilo de la petición
+    private Mono<ResponseEntity<?>> relay(Mono<ResponseEntity<?>> response) {
+        return apiClient.dispatch(response.onErrorResume(e -> Mono.just(error(e))));
+    }
+
+    private ResponseEntity<?> error(Throwable e) {
+        // Circuito abierto o bulkhead lleno: se rechaza de inmediato con 503
+        if (e instanceof UpstreamUnavailableException) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of(
+                            "error", "Clinical microservice temporarily unavailable",
+                            "message", e.getMessage(),
+                            "status", 503
+                    ));
+        }
         return ResponseEntity.status(HttpStatus.BAD_GATEWAY)
                 .body(Map.of(
                         "error", "Error contacting clinical microservice",
@@ -60,13 +82,9 @@ public class ClinicalGatewayController {
             }
     )
     @GetMapping("/patients")
-    public ResponseEntity<?> findAllPatients() {
-        try {
-            String url = clinicaUrl + "/patients";
-            return success(apiClient.get(url));
-        } catch (Exception e) {
-            return error(e);
-        }
+    public Mono<ResponseEntity<?>> findAllPatients() {
+        String url = clinicaUrl + "/patients";
+        return respond(apiClient.get(url));
     }
 
 
@@ -79,13 +97,9 @@ public class ClinicalGatewayController {
             }
     )
     @PostMapping("/patient")
-    public ResponseEntity<?> createPatient(@RequestBody CreatePatientInDto dto) {
-        try {
-            String url = clinicaUrl + "/patients";
-            return success(apiClient.post(url, dto));
-        } catch (Exception e) {
-            return error(e);
-        }
+    public Mono<ResponseEntity<?>> createPatient(@RequestBody CreatePatientInDto dto) {
+        String url = clinicaUrl + "/patients";
+        return respond(apiClient.post(url, dto));
     }
 
 
@@ -94,13 +108,9 @@ public class ClinicalGatewayController {
             description = "Crea un nuevo tipo de tumor en el microservicio clínico"
     )
     @PostMapping("/tumortype")
-    public ResponseEntity<?> createTumorType(@RequestBody CreateTumorTypeInDto dto) {
-        try {
-            String url = clinicaUrl + "/tumortypes";
-            return success(apiClient.post(url, dto));
-        } catch (Exception e) {
-            return error(e);
-        }
+    public Mono<ResponseEntity<?>> createTumorType(@RequestBody CreateTumorTypeInDto dto) {
+        String url = clinicaUrl + "/tumortypes";
+        return respond(responseCache.invalidating(apiClient.post(url, dto), "tumortypes"));
     }
 
 
@@ -109,26 +119,18 @@ public class ClinicalGatewayController {
             description = "Crea un registro clínico para un paciente"
     )
     @PostMapping("/clinicalrecord")
-    public ResponseEntity<?> createClinicalRecord(@RequestBody CreateClinicalRecordInDto dto) {
-        try {
-            String url = clinicaUrl + "/clinicalrecords";
-            return success(apiClient.post(url, dto));
-        } catch (Exception e) {
-            return error(e);
-        }
+    public Mono<ResponseEntity<?>> createClinicalRecord(@RequestBody CreateClinicalRecordInDto dto) {
+        String url = clinicaUrl + "/clinicalrecords";
+        return respond(apiClient.post(url, dto));
     }
 
     @Operation(
 
     )
     @GetMapping("/tumortypes")
-    public ResponseEntity<?> getAllTumorTypes() {
-        try {
-            String url = clinicaUrl + "/tumortypes";
-            return success(apiClient.get(url));
-        } catch (Exception e) {
-            return error(e);
-        }
+    public Mono<ResponseEntity<?>> getAllTumorTypes() {
+        String url = clinicaUrl + "/tumortypes";
+        return respond(responseCache.get("tumortypes", url, () -> apiClient.get(url)));
     }
 
     @Operation(
@@ -140,13 +142,9 @@ public class ClinicalGatewayController {
             @ApiResponse(responseCode = "502", description = "Error comunicándose con el microservicio clínico")
     })
     @GetMapping("/clinicalrecords")
-    public ResponseEntity<?> getAllClinicalRecords() {
-        try {
-            String url = clinicaUrl + "/clinicalrecords";
-            return success(apiClient.get(url));
-        } catch (Exception e) {
-            return error(e);
-        }
+    public Mono<ResponseEntity<?>> getAllClinicalRecords() {
+        String url = clinicaUrl + "/clinicalrecords";
+        return relay(apiClient.stream(url));
     }
 
 
@@ -161,13 +159,9 @@ public class ClinicalGatewayController {
             @ApiResponse(responseCode = "502", description = "Error comunicándose con el microservicio clínico")
     })
     @PatchMapping("/patients/{idPatient}/status")
-    public ResponseEntity<?> statusPatient(@PathVariable String idPatient) {
-        try {
-            String url = clinicaUrl + "/patients/" + idPatient + "/status";
-            return success(apiClient.patch(url));
-        } catch (Exception e) {
-            return error(e);
-        }
+    public Mono<ResponseEntity<?>> statusPatient(@PathVariable String idPatient) {
+        String url = clinicaUrl + "/patients/" + idPatient + "/status";
+        return respond(apiClient.patch(url));
     }
 
     @Operation(
@@ -180,16 +174,12 @@ public class ClinicalGatewayController {
             @ApiResponse(responseCode = "502", description = "Error comunicándose con el microservicio clínico")
     })
     @GetMapping("/patients/{idPatient}")
-    public ResponseEntity<?> findById(
+    public Mono<ResponseEntity<?>> findById(
             @Parameter(description = "ID del paciente a consultar", required = true)
             @PathVariable String idPatient
     ) {
-        try {
-            String url = clinicaUrl + "/patients/" + idPatient;
-            return success(apiClient.get(url));
-        } catch (Exception e) {
-            return error(e);
-        }
+        String url = clinicaUrl + "/patients/" + idPatient;
+        return respond(apiClient.get("patient", url));
     }
 
 }
@@ -0,0 +1,176 @@
+package com.autenticacion.GenoSentinelAuth.controller;
+
+import org.reactivestreams.Subscription;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import reactor.core.Disposable;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * InputStream bloqueante sobre el cuerpo de una respuesta del microservicio.
+ * Pide como máximo {@code demand} buffers por adelantado, de modo que la memoria usada
+ * no depende del tamaño del JSON. Cada DataBuffer se libera en cuanto se termina de leer,
+ * y al cerrar el stream se cancela la suscripción y se liberan los buffers pendientes.
+ * La suscripción al cuerpo se hace en la primera lectura: si la respuesta nunca llega a escribirse
+ * (cliente desconectado, Accept incompatible, timeout de la petición asíncrona) no se retiene ningún buffer,
+ * y pasado {@code abandonAfter} sin lecturas el stream se cierra solo y libera la conexión.
+ */
+final class DataBufferInputStream extends InputStream {
+
+    // Señal de fin del cuerpo (el resto de elementos de la cola son DataBuffer o Throwable)
+    private static final Object COMPLETE = new Object();
+
+    private final Flux<DataBuffer> body;
+    private final BlockingQueue<Object> queue;
+    private final BufferSubscriber subscriber;
+    // Se activa una sola vez: en la primera lectura, al cerrar o al abandonarse el stream
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+    private final Disposable abandonTimer;
+
+    private DataBuffer current;
+    private boolean finished;
+    private volatile boolean closed;
+
+    DataBufferInputStream(Flux<DataBuffer> body, int demand, Duration abandonAfter) {
+        this.body = body;
+        // demand buffers + la señal de fin: nunca se piden más de los que caben
+        this.queue = new ArrayBlockingQueue<>(demand + 1);
+        this.subscriber = new BufferSubscriber(demand);
+        this.abandonTimer = Mono.delay(abandonAfter).subscribe(tick -> cancelUnread());
+    }
+
+    @Override
+    public int read() throws IOException {
+        DataBuffer buffer = nextBuffer();
+        return buffer == null ? -1 : buffer.read() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        DataBuffer buffer = nextBuffer();
+        if (buffer == null) {
+            return -1;
+        }
+        int n = Math.min(len, buffer.readableByteCount());
+        buffer.read(b, off, n);
+        return n;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        abandonTimer.dispose();
+        subscriber.cancel();
+        cancelUnread();
+        releaseCurrent();
+        drain();
+    }
+
+    // Cuerpo que nunca se leyó: se suscribe ya cancelado (BaseSubscriber cancela la suscripción en cuanto
+    // la recibe) para que la conexión vuelva al pool. Si la primera lectura ya se suscribió no hace nada.
+    private void cancelUnread() {
+        if (subscribed.compareAndSet(false, true)) {
+            closed = true;
+            subscriber.cancel();
+            body.subscribe(subscriber);
+        }
+    }
+
+    private DataBuffer nextBuffer() throws IOException {
+        if (!subscribed.get() && subscribed.compareAndSet(false, true)) {
+            // Primera lectura
+            abandonTimer.dispose();
+            body.subscribe(subscriber);
+        }
+        while (current == null || current.readableByteCount() == 0) {
+            if (current != null) {
+                releaseCurrent();
+                subscriber.request(1);
+            }
+            if (finished || closed) {
+                return null;
+            }
+            Object next;
+            try {
+                next = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while reading microservice response", e);
+            }
+            if (next == COMPLETE) {
+                finished = true;
+                return null;
+            }
+            if (next instanceof Throwable error) {
+                finished = true;
+                throw new IOException("Error reading microservice response: " + error.getMessage(), error);
+            }
+            current = (DataBuffer) next;
+        }
+        return current;
+    }
+
+    private void releaseCurrent() {
+        if (current != null) {
+            DataBufferUtils.release(current);
+            current = null;
+        }
+    }
+
+    private void drain() {
+        Object item;
+        while ((item = queue.poll()) != null) {
+            if (item instanceof DataBuffer buffer) {
+                DataBufferUtils.release(buffer);
+            }
+        }
+    }
+
+    private final class BufferSubscriber extends BaseSubscriber<DataBuffer> {
+
+        private final int demand;
+
+        private BufferSubscriber(int demand) {
+            this.demand = demand;
+        }
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+            request(demand);
+        }
+
+        @Override
+        protected void hookOnNext(DataBuffer buffer) {
+            queue.offer(buffer);
+            // Un buffer que llega después de close() no tiene lector: se libera aquí
+            if (closed) {
+                drain();
+            }
+        }
+
+        @Override
+        protected void hookOnComplete() {
+            queue.offer(COMPLETE);
+        }
+
+        @Override
+        protected void hookOnError(Throwable throwable) {
+            queue.offer(throwable);
+        }
+    }
+}
@@ -1,10 +1,20 @@
 package com.autenticacion.GenoSentinelAuth.controller;
 
+import com.autenticacion.GenoSentinelAuth.exceptions.InvalidInputException;
+import com.autenticacion.GenoSentinelAuth.exceptions.UpstreamUnavailableException;
+import com.autenticacion.GenoSentinelAuth.services.GatewayResponseCache;
 import com.autenticacion.GenoSentinelAuth.services.JwtService;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
 import lombok.RequiredArgsConstructor;
@@ -12,7 +22,14 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -23,10 +40,18 @@ public class GenomicaGatewayController {
 
     private final JwtService jwt;
     private final ApiClient apiClient;
+    private final GatewayResponseCache responseCache;
+    private final ObjectMapper objectMapper;
 
     @Value("${microservicio.genomica.url}")
     private String genomicaUrl;
 
+    @Value("${gateway.batch.concurrency:8}")
+    private int batchConcurrency;
+
+    @Value("${gateway.batch.max-items:5000}")
+    private int batchMaxItems;
+
     // -------------------------------
     // Helpers
     // -------------------------------
@@ -36,7 +61,25 @@ public class GenomicaGatewayController {
                 .body(body);
     }
 
-    private ResponseEntity<?> error(Exception e) {
+    private Mono<ResponseEntity<?>> respond(Mono<String> upstream) {
+        return relay(upstream.map(this::success));
+    }
+
+    // Convierte cualquier fallo del microservicio en un 502 sin bloquear el hilo de la petición
+    private Mono<ResponseEntity<?>> relay(Mono<ResponseEntity<?>> response) {
+        return apiClient.dispatch(response.onErrorResume(e -> Mono.just(error(e))));
+    }
+
+    private ResponseEntity<?> error(Throwable e) {
+        // Circuito abierto o bulkhead lleno: se rechaza de inmediato con 503
+        if (e instanceof UpstreamUnavailableException) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of(
+                            "error", "Genomic microservice temporarily unavailable",
+                            "message", e.getMessage(),
+                            "status", 503
+                    ));
+        }
         return ResponseEntity.status(HttpStatus.BAD_GATEWAY)
                 .body(Map.of(
                         "error", "Error contacting genomic microservice",
@@ -45,6 +88,62 @@ public class GenomicaGatewayController {
                 ));
     }
 
+    // Un arreglo JSON o NDJSON (un objeto por línea) → lista de asignaciones.
+    // Se lee en streaming y se rechaza en cuanto supera batchMaxItems, sin leer el resto del cuerpo
+    private List<JsonNode> parseBatch(InputStream body, boolean ndjson) throws IOException {
+        List<JsonNode> items = new ArrayList<>();
+        try {
+            if (ndjson) {
+                // Los saltos de línea son espacio en blanco para Jackson: cada línea es un valor raíz
+                try (MappingIterator<JsonNode> values = objectMapper.readerFor(JsonNode.class).readValues(body)) {
+                    while (values.hasNextValue()) {
+                        addItem(items, values.nextValue());
+                    }
+                }
+            } else {
+                try (JsonParser parser = objectMapper.createParser(body)) {
+                    if (parser.nextToken() != JsonToken.START_ARRAY) {
+                        throw new InvalidInputException("Batch body must be a JSON array");
+                    }
+                    JsonToken token;
+                    while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+                        addItem(items, parser.readValueAsTree());
+                    }
+                }
+            }
+        } catch (JsonProcessingException e) {
+            throw new InvalidInputException("Invalid JSON in batch: " + e.getOriginalMessage());
+        }
+        if (items.isEmpty()) {
+            throw new InvalidInputException("Batch cannot be empty");
+        }
+        return items;
+    }
+
+    private void addItem(List<JsonNode> items, JsonNode item) {
+        if (items.size() == batchMaxItems) {
+            throw new InvalidInputException("Batch exceeds " + batchMaxItems + " items");
+        }
+        items.add(item);
+    }
+
+    private Map<String, Object> batchResult(int index, boolean success, String key, Object value) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("index", index);
+        result.put("success", success);
+        result.put(key, value);
+        return result;
+    }
+
+    // La respuesta del microservicio se incrusta como JSON; si no lo es, como texto
+    private Object readJson(String response) {
+        try {
+            return objectMapper.readTree(response);
+        } catch (JsonProcessingException e) {
+            return response;
+        }
+    }
+
     // =========================================================================
     //                              GENES
     // =========================================================================
@@ -54,13 +153,9 @@ public class GenomicaGatewayController {
             description = "Crea un nuevo gene en el microservicio genómico."
     )
     @PostMapping("/gene")
-    public ResponseEntity<?> createGene(@RequestBody String body) {
-        try {
-            String url = genomicaUrl + "/gene/";
-            return success(apiClient.post(url, body));
-        } catch (Exception e) {
-            return error(e);
-        }
+    public Mono<ResponseEntity<?>> createGene(@RequestBody String body) {
+        String url = genomicaUrl + "/gene/";
+        return respond(responseCache.invalidating(apiClient.post(url, body), "genes", "gene"));
     }
 
     @Operation(
@@ -68,13 +163,9 @@ public class GenomicaGatewayController {
             description = "Obtiene la lista completa de genes."
     )
     @GetMapping("/gene")
-    public ResponseEntity<?> getAllGenes() {
-        try {
-            String url = genomicaUrl + "/gene/";
-            return success(apiClient.get(url));
-        } catch (Exception e) {
-            return error(e);
-        }
+    public Mono<ResponseEntity<?>> getAllGenes() {
+        String url = genomicaUrl + "/gene/";
+        return respond(responseCache.get("genes", url, () -> apiClient.get(url)));
     }
 
     @Operation(
@@ -82,13 +173,9 @@ public class GenomicaGatewayController {
             description = "Devuelve un gene según su ID."
     )
     @GetMapping("/gene/{id}")
-    public ResponseEntity<?> getGeneById(@PathVariable String id) {
-        try {
-            String url = genomicaUrl + "/gene/" + id + "/";
-            return success(apiClient.get(url));
-        } catch (Exception e) {
-            return error(e);
-        }
+    public Mono<ResponseEntity<?>> getGeneById(@PathVariable String id) {
+        String url = genomicaUrl + "/gene/" + id + "/";
+        return respond(responseCache.get("gene", url, () -> apiClient.get("gene", url)));
     }
 
     @Operation(
@@ -96,13 +183,9 @@ public class GenomicaGatewayController {
             description = "Modifica atributos de un gene específico."
     )
     @PatchMapping("/gene/{id}")
-    public ResponseEntity<?> updateGene(@PathVariable String id, @RequestBody String body) {
-        try {
-            String url = genomicaUrl + "/gene/" + id + "/";
-            return success(apiClient.patch(url, body));
-        } catch (Exception e) {
-            return error(e);
-        }
+    public Mono<ResponseEntity<?>> updateGene(@PathVariable String id, @RequestBody String body) {
+        String url = genomicaUrl + "/gene/" + id + "/";
+        return respond(responseCache.invalidating(apiClient.patch(url, body), "genes", "gene"));
     }
 
     @Operation(
@@ -110,13 +193,9 @@ public class GenomicaGatewayController {
             description = "Elimina un gene por ID."
     )
     @DeleteMapping("/gene/{id}")
-    public ResponseEntity<?> deleteGene(@PathVariable String id) {
-        try {
-            String url = genomicaUrl + "/gene/" + id + "/";
-            return success(apiClient.delete(url));
-        } catch (Exception e) {
-            return error(e);
-        }
+    public Mono<ResponseEntity<?>> deleteGene(@PathVariable String id) {
+        String url = genomicaUrl + "/gene/" + id + "/";
+        return respond(responseCache.invalidating(apiClient.delete(url), "genes", "gene"));
     }
 
 
@@ -129,13 +208,9 @@ public class GenomicaGatewayController {
             description = "Crea una variante genética asociada a un gene."
     )
     @PostMapping("/genetic-variants")
-    public ResponseEntity<?> createVariant(@RequestBody String body) {
-        try {
-            String url = genomicaUrl + "/genetic-variants/";
-            return success(apiClient.post(url, body));
-        } catch (Exception e) {
-            return error(e);
-        }
+    public Mono<ResponseEntity<?>> createVariant(@RequestBody String body) {
+        String url = genomicaUrl + "/genetic-variants/";
+        return respond(apiClient.post(url, body));
     }
 
     @Operation(
@@ -143,13 +218,9 @@ public class GenomicaGatewayController {
             description = "Obtiene todas las variantes genéticas."
     )
     @GetMapping("/genetic-variants")
-    public ResponseEntity<?> getAllVariants() {
-        try {
-            String url = genomicaUrl + "/genetic-variants/";
-            return success(apiClient.get(url));
-        } catch (Exception e) {
-            return error(e);
-        }
+    public Mono<ResponseEntity<?>> getAllVariants() {
+        String url = genomicaUrl + "/genetic-variants/";
+        return relay(apiClient.stream(url));
     }
 
     @Operation(
@@ -157,13 +228,9 @@ public class GenomicaGatewayController {
             description = "Consulta una variante genética por su UUID."
     )
     @GetMapping("/genetic-variants/{uuid}")
-    public ResponseEntity<?> getVariant(@PathVariable String uuid) {
-        try {
-            String url = genomicaUrl + "/genetic-variants/" + uuid + "/";
-            return success(apiClient.get(url));
-        } catch (Exception e) {
-            return error(e);
-        }
+    public Mono<ResponseEntity<?>> getVariant(@PathVariable String uuid) {
+        String url = genomicaUrl + "/genetic-variants/" + uuid + "/";
+        return respond(apiClient.get("variant", url));
     }
 
     @Operation(
@@ -171,13 +238,9 @@ public class GenomicaGatewayController {
             description = "Modifica una variante genética específica."
     )
     @PatchMapping("/genetic-variants/{uuid}")
-    public ResponseEntity<?> updateVariant(@PathVariable String uuid, @RequestBody String body) {
-        try {
-            String url = genomicaUrl + "/genetic-variants/" + uuid + "/";
-            return success(apiClient.patch(url, body));
-        } catch (Exception e) {
-            return error(e);
-        }
+    public Mono<ResponseEntity<?>> updateVariant(@PathVariable String uuid, @RequestBody String body) {
+        String url = genomicaUrl + "/genetic-variants/" + uuid + "/";
+        return respond(apiClient.patch(url, body));
     }
 
     @Operation(
@@ -185,13 +248,9 @@ public class GenomicaGatewayController {
             description = "Elimina una variante genética usando su UUID."
     )
     @DeleteMapping("/genetic-variants/{uuid}")
-    public ResponseEntity<?> deleteVariant(@PathVariable String uuid) {
-        try {
-            String url = genomicaUrl + "/genetic-variants/" + uuid + "/";
-            return success(apiClient.delete(url));
-        } catch (Exception e) {
-            return error(e);
-        }
+    public Mono<ResponseEntity<?>> deleteVariant(@PathVariable String uuid) {
+        String url = genomicaUrl + "/genetic-variants/" + uuid + "/";
+        return respond(apiClient.delete(url));
     }
 
 
@@ -204,13 +263,9 @@ public class GenomicaGatewayController {
             description = "Registra un nuevo paciente."
     )
     @PostMapping("/patients")
-    public ResponseEntity<?> createPatient(@RequestBody String body) {
-        try {
-            String url = genomicaUrl + "/patients/";
-            return success(apiClient.post(url, body));
-        } catch (Exception e) {
-            return error(e);
-        }
+    public Mono<ResponseEntity<?>> createPatient(@RequestBody String body) {
+        String url = genomicaUrl + "/patients/";
+        return respond(apiClient.post(url, body));
     }
 
 
@@ -223,13 +278,47 @@ public class GenomicaGatewayController {
             description = "Crea un reporte que relaciona paciente + variante genética."
     )
     @PostMapping("/assign-genetic-variant")
-    public ResponseEntity<?> assignVariant(@RequestBody String body) {
-        try {
-            String url = genomicaUrl + "/assign-genetic-variant/";
-            return success(apiClient.post(url, body));
-        } catch (Exception e) {
-            return error(e);
-        }
+    public Mono<ResponseEntity<?>> assignVariant(@RequestBody String body) {
+        String url = genomicaUrl + "/assign-genetic-variant/";
+        return respond(apiClient.post(url, body));
+    }
+
+    @Operation(
+            summary = "Asignar variantes genéticas en lote",
+            description = "Recibe un arreglo JSON (application/json) o una asignación por línea (application/x-ndjson) "
+                    + "y las reenvía al microservicio genómico con concurrencia acotada (gateway.batch.concurrency). "
+                    + "Devuelve el resultado de cada elemento en el mismo orden de entrada."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Lote procesado; ver el resultado de cada elemento"),
+            @ApiResponse(responseCode = "400", description = "Lote vacío, demasiado grande o con JSON inválido", content = @Content)
+    })
+    @PostMapping(value = "/assign-genetic-variant/batch",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Mono<ResponseEntity<?>> assignVariantBatch(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            InputStream body
+    ) throws IOException {
+        List<JsonNode> items = parseBatch(body, MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType));
+        String url = genomicaUrl + "/assign-genetic-variant/";
+
+        return apiClient.dispatch(Flux.range(0, items.size())
+                .flatMapSequential(i -> apiClient.post(url, items.get(i))
+                        .map(response -> batchResult(i, true, "response", readJson(response)))
+                        // 2xx sin cuerpo: la asignación se hizo, no hay respuesta que incrustar
+                        .switchIfEmpty(Mono.fromSupplier(() -> batchResult(i, true, "response", null)))
+                        .onErrorResume(e -> Mono.just(batchResult(i, false, "error", e.getMessage()))),
+                        batchConcurrency)
+                .collectList()
+                .map(results -> {
+                    long succeeded = results.stream().filter(r -> Boolean.TRUE.equals(r.get("success"))).count();
+                    return ResponseEntity.ok(Map.of(
+                            "total", results.size(),
+                            "succeeded", succeeded,
+                            "failed", results.size() - succeeded,
+                            "results", results
+                    ));
+                }));
     }
 
     @Operation(
@@ -237,13 +326,9 @@ public class GenomicaGatewayController {
             description = "Muestra los reportes que vinculan variantes con pacientes."
     )
     @GetMapping("/patient-variant-reports")
-    public ResponseEntity<?> listVariantReports() {
-        try {
-            String url = genomicaUrl + "/patient-variant-reports/";
-            return success(apiClient.get(url));
-        } catch (Exception e) {
-            return error(e);
-        }
+    public Mono<ResponseEntity<?>> listVariantReports() {
+        String url = genomicaUrl + "/patient-variant-reports/";
+        return relay(apiClient.stream(url));
     }
 
 }
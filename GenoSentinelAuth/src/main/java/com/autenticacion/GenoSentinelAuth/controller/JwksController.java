@@ -0,0 +1,48 @@
+package com.autenticacion.GenoSentinelAuth.controller;
+
+import com.autenticacion.GenoSentinelAuth.services.JwtKeyRing;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.Duration;
+
+/**
+ * Publica las claves públicas de firma de los JWT (JSON Web Key Set) para que los
+ * microservicios y otras réplicas del gateway puedan verificar los tokens localmente.
+ */
+@RestController
+@RequiredArgsConstructor
+@Tag(name = "JWKS", description = "Claves públicas para verificar los tokens JWT")
+public class JwksController {
+
+    private final JwtKeyRing keyRing;
+
+    @Value("${jwt.keys.jwks-max-age:5m}")
+    private Duration maxAge;
+
+    @Operation(
+            summary = "JSON Web Key Set",
+            description = "Claves públicas vigentes (ES256/EdDSA), identificadas por su kid"
+    )
+    @GetMapping(value = "/.well-known/jwks.json", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<String> jwks(WebRequest request) {
+        String jwks = keyRing.jwks();
+        String etag = "\"" + Integer.toHexString(jwks.hashCode()) + "\"";
+        // Los clientes que ya tienen esta versión del JWKS reciben 304 sin cuerpo
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(maxAge).cachePublic())
+                .eTag(etag)
+                .body(jwks);
+    }
+}
@@ -0,0 +1,151 @@
+package com.autenticacion.GenoSentinelAuth.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Vista agregada de un paciente: consulta en paralelo el paciente, sus historias clínicas
+ * y sus reportes de variantes, de modo que la latencia es la de la llamada más lenta y no la suma.
+ * Cada parte tiene su propio timeout (gateway.aggregate.timeout); si una falla, se devuelve
+ * el resto con la parte en null y el motivo en "errors".
+ * Los microservicios no tienen endpoints ni filtros por paciente para historias y reportes: el listado
+ * completo se recorre en streaming elemento a elemento (ApiClient.filterList) y solo se conservan los del
+ * paciente, así que el listado nunca se carga entero en memoria.
+ */
+@RestController
+@RequestMapping("/gateway/patients")
+@RequiredArgsConstructor
+@Tag(name = "Patient View Gateway", description = "Vista agregada de un paciente (clínico + genómico)")
+public class PatientViewGatewayController {
+
+    private final ApiClient apiClient;
+    private final ObjectMapper objectMapper;
+
+    @Value("${microservicio.clinica.url}")
+    private String clinicaUrl;
+
+    @Value("${microservicio.genomica.url}")
+    private String genomicaUrl;
+
+    @Value("${gateway.aggregate.timeout:3s}")
+    private Duration partTimeout;
+
+    // Campo que identifica al paciente en cada listado de los microservicios
+    @Value("${gateway.aggregate.clinical-records.patient-field:patientId}")
+    private String recordPatientField;
+
+    @Value("${gateway.aggregate.variant-reports.patient-field:patient_id}")
+    private String reportPatientField;
+
+    /**
+     * Resultado de una de las consultas: el JSON obtenido o el motivo del fallo.
+     */
+    private record Part(JsonNode value, String error) {
+    }
+
+    @Operation(
+            summary = "Vista completa de un paciente",
+            description = "Obtiene en paralelo el paciente, sus historias clínicas y sus reportes de variantes. " +
+                    "Si alguna consulta falla o supera el timeout se devuelve el resto (partial=true)."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Vista del paciente (posiblemente parcial)"),
+            @ApiResponse(responseCode = "502", description = "Ninguno de los microservicios respondió")
+    })
+    @GetMapping("/{idPatient}/view")
+    public Mono<ResponseEntity<?>> patientView(
+            @Parameter(description = "ID del paciente", required = true)
+            @PathVariable String idPatient
+    ) {
+        Mono<Part> patient = part(apiClient.get("patient", clinicaUrl + "/patients/" + idPatient)
+                .map(this::readJson));
+        Mono<Part> records = part(patientItems(clinicaUrl + "/clinicalrecords",
+                recordPatientField, idPatient));
+        Mono<Part> reports = part(patientItems(genomicaUrl + "/patient-variant-reports/",
+                reportPatientField, idPatient));
+
+        Mono<ResponseEntity<?>> view = Mono.zip(patient, records, reports)
+                .map(parts -> merge(parts.getT1(), parts.getT2(), parts.getT3()));
+        return apiClient.dispatch(view);
+    }
+
+    // -------------------------------
+    // Helpers
+    // -------------------------------
+
+    // Aplica el timeout de la parte y convierte cualquier error (o una respuesta vacía) en un resultado parcial
+    private Mono<Part> part(Mono<JsonNode> call) {
+        return call.timeout(partTimeout)
+                .map(value -> new Part(value, null))
+                .defaultIfEmpty(new Part(null, "Empty response from microservice"))
+                .onErrorResume(e -> Mono.just(new Part(null, describe(e))));
+    }
+
+    private ResponseEntity<?> merge(Part patient, Part records, Part reports) {
+        Map<String, String> errors = new LinkedHashMap<>();
+        addError(errors, "patient", patient);
+        addError(errors, "clinicalRecords", records);
+        addError(errors, "variantReports", reports);
+
+        if (errors.size() == 3) {
+            return ResponseEntity.status(HttpStatus.BAD_GATEWAY)
+                    .body(Map.of(
+                            "error", "Error contacting clinical and genomic microservices",
+                            "errors", errors,
+                            "status", 502
+                    ));
+        }
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("patient", patient.value());
+        body.put("clinicalRecords", records.value());
+        body.put("variantReports", reports.value());
+        body.put("partial", !errors.isEmpty());
+        body.put("errors", errors);
+        return ResponseEntity.ok(body);
+    }
+
+    private void addError(Map<String, String> errors, String name, Part part) {
+        if (part.error() != null) {
+            errors.put(name, part.error());
+        }
+    }
+
+    private String describe(Throwable e) {
+        if (e instanceof TimeoutException) {
+            return "No response within " + partTimeout.toMillis() + " ms";
+        }
+        return e.getMessage();
+    }
+
+    private JsonNode readJson(String body) {
+        try {
+            return objectMapper.readTree(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Invalid JSON from microservice: " + e.getOriginalMessage(), e);
+        }
+    }
+
+    // Elementos del listado cuyo campo del paciente coincide, filtrados mientras se lee el listado
+    private Mono<JsonNode> patientItems(String url, String field, String idPatient) {
+        return apiClient.filterList(url, item -> idPatient.equals(item.path(field).asText(null)))
+                .map(items -> objectMapper.createArrayNode().addAll(items));
+    }
+}
@@ -0,0 +1,184 @@
+package com.autenticacion.GenoSentinelAuth.controller;
+
+import com.autenticacion.GenoSentinelAuth.exceptions.InvalidInputException;
+import com.autenticacion.GenoSentinelAuth.models.dto.UserImportRow;
+import com.autenticacion.GenoSentinelAuth.services.UserImportService;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Importación masiva de usuarios para administradores.
+ * El cuerpo se lee en streaming (arreglo JSON o CSV con cabecera), sin cargarlo entero como texto.
+ */
+@RestController
+@RequestMapping("/admin/users")
+@RequiredArgsConstructor
+@Tag(name = "User Import", description = "Alta masiva de usuarios (solo ADMIN)")
+public class UserImportController {
+
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+
+    private final UserImportService importService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${security.import.max-rows:5000}")
+    private int maxRows;
+
+    @Operation(
+            summary = "Importar usuarios",
+            description = "Recibe un arreglo JSON (application/json) de objetos {username, email, password, role} "
+                    + "o un CSV (text/csv) con cabecera username,email,password[,role]. El rol por defecto es USER. "
+                    + "Las contraseñas se procesan en paralelo y los usuarios se insertan por lotes. "
+                    + "Devuelve el resultado de cada fila en el mismo orden de entrada."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Importación procesada; ver el resultado de cada fila"),
+            @ApiResponse(responseCode = "400", description = "Cuerpo vacío, demasiado grande o con formato inválido", content = @Content),
+            @ApiResponse(responseCode = "403", description = "El usuario no es ADMIN", content = @Content),
+            @ApiResponse(responseCode = "503", description = "Pool de hashing saturado, reintentar tras Retry-After", content = @Content)
+    })
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_JSON_VALUE, "text/csv"})
+    public Map<String, Object> importUsers(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            InputStream body
+    ) throws IOException {
+        List<UserImportRow> rows = TEXT_CSV.isCompatibleWith(contentType) ? readCsv(body) : readJson(body);
+        if (rows.isEmpty()) {
+            throw new InvalidInputException("Import cannot be empty");
+        }
+
+        List<Map<String, Object>> results = new ArrayList<>(rows.size());
+        long created = 0;
+        for (UserImportService.RowResult row : importService.importUsers(rows)) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("index", row.index());
+            result.put("username", row.username());
+            result.put("success", row.success());
+            if (!row.success()) {
+                result.put("error", row.error());
+            }
+            results.add(result);
+            created += row.success() ? 1 : 0;
+        }
+        return Map.of(
+                "total", results.size(),
+                "created", created,
+                "failed", results.size() - created,
+                "results", results
+        );
+    }
+
+    // -------------------------------
+    // Helpers
+    // -------------------------------
+
+    private List<UserImportRow> readJson(InputStream body) throws IOException {
+        List<UserImportRow> rows = new ArrayList<>();
+        try (JsonParser parser = objectMapper.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new InvalidInputException("Import body must be a JSON array");
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token != JsonToken.START_OBJECT) {
+                    throw new InvalidInputException("Import array elements must be JSON objects");
+                }
+                addRow(rows, parser.readValueAs(UserImportRow.class));
+            }
+        } catch (JsonProcessingException e) {
+            throw new InvalidInputException("Invalid JSON in import: " + e.getOriginalMessage());
+        }
+        return rows;
+    }
+
+    private List<UserImportRow> readCsv(InputStream body) throws IOException {
+        List<UserImportRow> rows = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        String header = reader.readLine();
+        if (header == null) {
+            return rows;
+        }
+        // Se ignora el BOM que añaden algunas hojas de cálculo al exportar en UTF-8
+        List<String> columns = csvFields(header.replace("\uFEFF", "")).stream()
+                .map(c -> c.trim().toLowerCase(Locale.ROOT))
+                .toList();
+        int username = columns.indexOf("username");
+        int email = columns.indexOf("email");
+        int password = columns.indexOf("password");
+        int role = columns.indexOf("role");
+        if (username < 0 || email < 0 || password < 0) {
+            throw new InvalidInputException("CSV header must contain username, email and password");
+        }
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            List<String> fields = csvFields(line);
+            addRow(rows, new UserImportRow(
+                    field(fields, username), field(fields, email), field(fields, password), field(fields, role)));
+        }
+        return rows;
+    }
+
+    private void addRow(List<UserImportRow> rows, UserImportRow row) {
+        if (rows.size() >= maxRows) {
+            throw new InvalidInputException("Import exceeds " + maxRows + " rows");
+        }
+        rows.add(row);
+    }
+
+    private static String field(List<String> fields, int index) {
+        return index >= 0 && index < fields.size() ? fields.get(index) : null;
+    }
+
+    // Campos de una línea CSV (RFC 4180): separados por comas, entre comillas si contienen comas o comillas ("")
+    private static List<String> csvFields(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,12 @@
+package com.autenticacion.GenoSentinelAuth.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// Esta excepción se lanza si el refresh token no existe, ya se usó o expiró
+@ResponseStatus(value = HttpStatus.UNAUTHORIZED, reason = "Invalid refresh token")
+public class InvalidRefreshTokenException extends RuntimeException {
+    public InvalidRefreshTokenException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,19 @@
+package com.autenticacion.GenoSentinelAuth.exceptions;
+
+/**
+ * Excepción cuando el servicio no admite más trabajo por ahora (por ejemplo, la cola de
+ * hashing de contraseñas está llena). Se responde con 503 y la cabecera Retry-After.
+ */
+public class ServiceBusyException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public ServiceBusyException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,12 @@
+package com.autenticacion.GenoSentinelAuth.exceptions;
+
+/**
+ * Excepción cuando el gateway rechaza una llamada sin contactar al microservicio:
+ * su circuit breaker está abierto o su bulkhead no admite más llamadas concurrentes.
+ * Los controladores del gateway la responden con 503.
+ */
+public class UpstreamUnavailableException extends RuntimeException {
+    public UpstreamUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,61 @@
+package com.autenticacion.GenoSentinelAuth.exceptions;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.sql.SQLException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Esta excepción se lanza si el username o el email ya están registrados
+@ResponseStatus(value = HttpStatus.CONFLICT, reason = "User already exists")
+public class UserAlreadyExistsException extends RuntimeException {
+
+    // Columna de la clave única violada, según el mensaje del driver o el nombre de la restricción
+    private static final Pattern UNIQUE_KEY_COLUMN =
+            Pattern.compile("(?:key '(?:users[._])?|users\\(|key \\()(username|email)(?![a-z0-9])", Pattern.CASE_INSENSITIVE);
+
+    public UserAlreadyExistsException(String message) {
+        super(message);
+    }
+
+    /**
+     * Traduce la violación de la clave única users.username o users.email al insertar un usuario.
+     * @return la excepción con el campo duplicado, o null si es otra violación (NOT NULL, FK, longitud...)
+     */
+    public static UserAlreadyExistsException from(DataIntegrityViolationException e) {
+        if (!isUniqueViolation(e)) {
+            return null;
+        }
+        String constraint = e.getCause() instanceof ConstraintViolationException cve ? cve.getConstraintName() : null;
+        // MySQL: "... for key 'users.email'"; H2: "... ON PUBLIC.USERS(EMAIL ...)";
+        // PostgreSQL: restricción "users_email_key" y "Key (email)=(...) already exists"
+        Matcher column = UNIQUE_KEY_COLUMN.matcher(
+                (constraint == null ? "" : "key '" + constraint + "' ") + e.getMostSpecificCause().getMessage());
+        if (!column.find()) {
+            return null;
+        }
+        return column.group(1).equalsIgnoreCase("email")
+                ? new UserAlreadyExistsException("Email already registered")
+                : new UserAlreadyExistsException("Username already exists");
+    }
+
+    // Clave duplicada según Spring, Hibernate o el SQLState del driver (MySQL 23000 + 1062, estándar 23505)
+    private static boolean isUniqueViolation(DataIntegrityViolationException e) {
+        if (e instanceof DuplicateKeyException) {
+            return true;
+        }
+        if (e.getCause() instanceof ConstraintViolationException cve
+                && cve.getKind() == ConstraintViolationException.ConstraintKind.UNIQUE) {
+            return true;
+        }
+        if (e.getMostSpecificCause() instanceof SQLException sql) {
+            return "23505".equals(sql.getSQLState())
+                    || ("23000".equals(sql.getSQLState()) && sql.getErrorCode() == 1062);
+        }
+        return false;
+    }
+}
@@ -0,0 +1,19 @@
+package com.autenticacion.GenoSentinelAuth.models.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Fila de la importación masiva de usuarios (JSON o CSV).
+ * Si no se indica el rol se asigna USER.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserImportRow {
+    private String username;
+    private String email;
+    private String password;
+    private String role;
+}
@@ -0,0 +1,36 @@
+package com.autenticacion.GenoSentinelAuth.models.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * Entidad que representa un refresh token emitido a un usuario.
+ * Solo se guarda el SHA-256 del token (nunca el token en claro), con un índice único
+ * para buscarlo en una sola lectura. Cada token se usa una sola vez: al refrescar se borra
+ * y se emite otro.
+ */
+@Entity
+@Table(name = "refresh_tokens",
+        indexes = @Index(name = "token_hash", columnList = "token_hash", unique = true))
+@Data
+public class RefreshToken {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // SHA-256 del token en hexadecimal
+    @Column(name = "token_hash", nullable = false, length = 64)
+    private String tokenHash;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private Users user;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
@@ -1,5 +1,6 @@
 package com.autenticacion.GenoSentinelAuth.models.entities;
 
+import com.autenticacion.GenoSentinelAuth.services.UserCacheInvalidator;
 import jakarta.persistence.*;
 import lombok.Data;
 import org.springframework.security.core.GrantedAuthority;
@@ -11,13 +12,19 @@ import java.util.List;
 /**
  * Entidad que representa un usuario del sistema.
  * Cada usuario tendrá un solo rol asignado.
+ * Los cambios se propagan al caché de usuarios mediante UserCacheInvalidator.
+ * El id sale de la tabla id_generators en bloques de 50 (no de AUTO_INCREMENT), así Hibernate
+ * conoce el id antes del INSERT y puede agrupar las inserciones en lotes JDBC (importación masiva).
  */
 @Entity
 @Table(name = "users")
+@EntityListeners(UserCacheInvalidator.class)
 @Data
 public class Users implements UserDetails {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "users_id")
+    @TableGenerator(name = "users_id", table = "id_generators", pkColumnName = "name",
+            valueColumnName = "next_val", pkColumnValue = "users", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, unique = true, length = 100)
@@ -0,0 +1,40 @@
+package com.autenticacion.GenoSentinelAuth.repositories;
+
+import com.autenticacion.GenoSentinelAuth.models.entities.RefreshToken;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repositorio JPA para la entidad RefreshToken.
+ * Busca tokens por su hash (con el usuario y su rol en la misma consulta) y los consume con un borrado.
+ * Al emitir uno nuevo se borran los expirados del usuario y los más antiguos por encima del máximo por usuario.
+ */
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+
+    @EntityGraph(attributePaths = {"user", "user.role"})
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+
+    // Devuelve 1 solo para la petición que consume el token; una segunda petición concurrente obtiene 0
+    @Modifying
+    @Query("delete from RefreshToken t where t.id = :id")
+    int deleteByIdAndCount(@Param("id") Long id);
+
+    @Modifying
+    @Query("delete from RefreshToken t where t.expiresAt < :now")
+    int deleteExpired(@Param("now") Instant now);
+
+    @Modifying
+    @Query("delete from RefreshToken t where t.user.id = :userId and t.expiresAt < :now")
+    int deleteExpiredByUser(@Param("userId") Long userId, @Param("now") Instant now);
+
+    // Ids de los tokens del usuario, del más reciente al más antiguo
+    @Query("select t.id from RefreshToken t where t.user.id = :userId order by t.createdAt desc, t.id desc")
+    List<Long> findIdsByUserNewestFirst(@Param("userId") Long userId);
+}
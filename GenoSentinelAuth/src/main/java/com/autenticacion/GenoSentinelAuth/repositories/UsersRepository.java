@@ -1,8 +1,13 @@
 package com.autenticacion.GenoSentinelAuth.repositories;
 
 import com.autenticacion.GenoSentinelAuth.models.entities.Users;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -10,5 +15,14 @@ import java.util.Optional;
  * Administra la persistencia de los usuarios del sistema, incluyendo búsquedas por nombre o correo.
  */
 public interface UsersRepository extends JpaRepository<Users,Long> {
+    // Carga el rol en la misma consulta (join): el login y los roles del token no necesitan otra ida a la BD
+    @EntityGraph(attributePaths = "role")
     Optional<Users> findByUsername(String username);
+
+    // Importación masiva: qué usernames / emails del lote ya están registrados
+    @Query("select u.username from Users u where u.username in :usernames")
+    List<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
+
+    @Query("select u.email from Users u where u.email in :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
 }
@@ -2,9 +2,11 @@ package com.autenticacion.GenoSentinelAuth.services;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.client.RestTemplate;
 
 @Configuration
+@EnableScheduling
 public class AppConfig {
 
     @Bean
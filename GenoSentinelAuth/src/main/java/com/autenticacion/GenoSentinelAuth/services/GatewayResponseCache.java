@@ -0,0 +1,110 @@
+package com.autenticacion.GenoSentinelAuth.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Caché de respuestas para las rutas GET de datos de referencia del gateway (tipos de tumor, genes...).
+ * Cada ruta tiene su propio caché acotado por tamaño y TTL, configurable con
+ * gateway.cache.&lt;ruta&gt;.ttl y gateway.cache.&lt;ruta&gt;.max-size (ttl=0 lo desactiva).
+ * Las escrituras del gateway sobre esos datos invalidan la ruta completa.
+ * Publica las métricas cache.gets (hit/miss), cache.puts y cache.evictions con la etiqueta cache=gateway.&lt;ruta&gt;.
+ */
+@Service
+public class GatewayResponseCache {
+
+    /**
+     * Caché de una ruta. La generación aumenta con cada invalidación, para que una carga
+     * que empezó antes de una escritura no vuelva a guardar datos ya obsoletos.
+     */
+    private record RouteCache(Cache<String, String> cache, AtomicLong generation) {
+    }
+
+    // Optional.empty() = ruta sin caché (desactivada por configuración)
+    private final Map<String, Optional<RouteCache>> routes = new ConcurrentHashMap<>();
+    private final Environment env;
+    private final MeterRegistry registry;
+
+    public GatewayResponseCache(Environment env, MeterRegistry registry) {
+        this.env = env;
+        this.registry = registry;
+    }
+
+    /**
+     * Devuelve la respuesta cacheada para la URL o la obtiene del microservicio y la guarda.
+     * @param route nombre de la ruta (define la configuración del caché)
+     * @param url URL del microservicio, usada como clave
+     * @param loader llamada al microservicio si no hay respuesta cacheada
+     */
+    public Mono<String> get(String route, String url, Supplier<Mono<String>> loader) {
+        RouteCache routeCache = routeCache(route);
+        if (routeCache == null) {
+            return loader.get();
+        }
+        return Mono.defer(() -> {
+            String cached = routeCache.cache().getIfPresent(url);
+            if (cached != null) {
+                return Mono.just(cached);
+            }
+            long generation = routeCache.generation().get();
+            return loader.get().doOnNext(body -> {
+                if (routeCache.generation().get() == generation) {
+                    routeCache.cache().put(url, body);
+                }
+            });
+        });
+    }
+
+    /**
+     * Envuelve una escritura para invalidar las rutas indicadas en cuanto termina
+     * (antes de que la respuesta llegue al cliente), haya tenido éxito o no.
+     */
+    public <T> Mono<T> invalidating(Mono<T> write, String... routeNames) {
+        Runnable invalidate = () -> {
+            for (String route : routeNames) {
+                invalidate(route);
+            }
+        };
+        return write.doOnTerminate(invalidate).doOnCancel(invalidate);
+    }
+
+    public void invalidate(String route) {
+        RouteCache routeCache = routeCache(route);
+        if (routeCache != null) {
+            routeCache.generation().incrementAndGet();
+            routeCache.cache().invalidateAll();
+        }
+    }
+
+    private RouteCache routeCache(String route) {
+        return routes.computeIfAbsent(route, this::create).orElse(null);
+    }
+
+    private Optional<RouteCache> create(String route) {
+        String prefix = "gateway.cache." + route + ".";
+        Duration ttl = env.getProperty(prefix + "ttl", Duration.class, Duration.ZERO);
+        long maxSize = env.getProperty(prefix + "max-size", Long.class, 100L);
+        if (!env.getProperty("gateway.cache.enabled", Boolean.class, true) || ttl.isZero() || maxSize <= 0) {
+            return Optional.empty();
+        }
+        Cache<String, String> cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, cache, "gateway." + route);
+        return Optional.of(new RouteCache(cache, new AtomicLong()));
+    }
+}
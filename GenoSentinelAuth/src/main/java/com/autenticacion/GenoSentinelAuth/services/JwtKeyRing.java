@@ -0,0 +1,299 @@
+package com.autenticacion.GenoSentinelAuth.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.PublicJwk;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.interfaces.ECKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Duration;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Claves asimétricas (ES256/ES384/ES512 o EdDSA) para firmar y verificar los JWT.
+ * Se leen de jwt.keys.dir, donde cada clave es un par de ficheros PEM:
+ * &lt;kid&gt;.key (privada, PKCS#8) y &lt;kid&gt;.pub (pública, X.509). Por ejemplo:
+ * <pre>
+ * openssl genpkey -algorithm EC -pkeyopt ec_paramgen_curve:P-256 -out 2025-01.key
+ * openssl pkey -in 2025-01.key -pubout -out 2025-01.pub
+ * </pre>
+ * Se firma con jwt.keys.active-kid o, si no se indica, con la clave privada más reciente cuya .pub
+ * lleve publicada al menos jwt.keys.jwks-max-age (según la fecha de modificación del fichero): así los
+ * clientes que cachean el JWKS ya la tienen cuando ven el primer token con su kid. Mientras tanto sigue
+ * firmando la clave anterior; solo si ninguna cumple el plazo (primera clave) se firma con la más reciente.
+ * Todas las claves públicas del directorio sirven para verificar y se publican en el JWKS.
+ * Para rotar: añadir &lt;kid&gt;.pub y &lt;kid&gt;.key (en ese orden, o a la vez), esperar a que firme la nueva
+ * y borrar la antigua cuando hayan expirado sus tokens (jwt.exp-min). Con jwt.keys.active-kid el orden
+ * es responsabilidad de quien lo cambia. El directorio se relee cada jwt.keys.reload-interval.
+ * Sin directorio (o sin claves privadas) JwtService sigue firmando con jwt.secret (HS256).
+ */
+@Component
+public class JwtKeyRing {
+
+    private static final Logger log = LoggerFactory.getLogger(JwtKeyRing.class);
+
+    /**
+     * Clave con la que se firman los tokens nuevos.
+     * @param kid identificador publicado en la cabecera del token y en el JWKS
+     * @param key clave privada
+     */
+    public record SigningKey(String kid, PrivateKey key) {
+    }
+
+    /**
+     * Estado cargado del directorio; se sustituye completo en cada recarga.
+     * pendingUntil es el instante (epoch ms) en que una clave aún sin publicar el tiempo suficiente
+     * puede pasar a firmar, o Long.MAX_VALUE si no hay ninguna esperando.
+     */
+    private record Keys(SigningKey signing, Map<String, PublicKey> verification, String jwks, String fingerprint,
+                        long pendingUntil) {
+    }
+
+    private static final Keys EMPTY = new Keys(null, Map.of(), "{\"keys\":[]}", "", Long.MAX_VALUE);
+
+    private final Path dir;
+    private final String activeKid;
+    private final Duration publishDelay;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private volatile Keys keys = EMPTY;
+
+    /**
+     * Carga las claves al arrancar; un directorio con claves inválidas impide el arranque.
+     * @param dir directorio de claves (vacío = sin claves asimétricas)
+     * @param activeKid kid de la clave de firma (vacío = la más reciente ya publicada)
+     * @param publishDelay tiempo que una clave pública debe estar en el JWKS antes de que su clave firme
+     */
+    public JwtKeyRing(@Value("${jwt.keys.dir:}") String dir,
+                      @Value("${jwt.keys.active-kid:}") String activeKid,
+                      @Value("${jwt.keys.jwks-max-age:5m}") Duration publishDelay) {
+        this.dir = dir == null || dir.isBlank() ? null : Path.of(dir);
+        this.activeKid = activeKid == null || activeKid.isBlank() ? null : activeKid;
+        this.publishDelay = publishDelay;
+        if (this.dir != null) {
+            this.keys = load(fingerprint());
+        }
+    }
+
+    /**
+     * Relee el directorio si ha cambiado o si una clave nueva ya lleva publicada el tiempo suficiente.
+     * Si las claves nuevas son inválidas se mantienen las anteriores.
+     */
+    @Scheduled(fixedDelayString = "${jwt.keys.reload-interval:PT60S}", initialDelayString = "${jwt.keys.reload-interval:PT60S}")
+    public void reload() {
+        if (dir == null) {
+            return;
+        }
+        try {
+            String fingerprint = fingerprint();
+            if (!fingerprint.equals(keys.fingerprint()) || System.currentTimeMillis() >= keys.pendingUntil()) {
+                keys = load(fingerprint);
+                log.info("JWT keys reloaded from {}: signing kid={}, verification kids={}",
+                        dir, signingKid(), keys.verification().keySet());
+            }
+        } catch (RuntimeException e) {
+            log.warn("JWT keys in {} not reloaded, keeping previous keys: {}", dir, e.getMessage());
+        }
+    }
+
+    /**
+     * @return clave de firma activa, o null si no hay claves asimétricas configuradas
+     */
+    public SigningKey signingKey() {
+        return keys.signing();
+    }
+
+    /**
+     * @param kid identificador de la cabecera del token
+     * @return clave pública para verificar, o null si el kid no existe
+     */
+    public PublicKey verificationKey(String kid) {
+        return keys.verification().get(kid);
+    }
+
+    /**
+     * @return JSON Web Key Set con las claves públicas vigentes (ya serializado)
+     */
+    public String jwks() {
+        return keys.jwks();
+    }
+
+    private String signingKid() {
+        SigningKey signing = keys.signing();
+        return signing == null ? null : signing.kid();
+    }
+
+    // Nombre, tamaño y fecha de cada fichero: si no cambia, no hace falta volver a leer las claves
+    private String fingerprint() {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(this::isKeyFile)
+                    .sorted()
+                    .map(p -> {
+                        try {
+                            return p.getFileName() + ":" + Files.size(p) + ":" + Files.getLastModifiedTime(p).toMillis();
+                        } catch (IOException e) {
+                            throw new IllegalStateException("Cannot read JWT key file " + p, e);
+                        }
+                    })
+                    .reduce("", (a, b) -> a + "|" + b);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot list JWT keys directory " + dir, e);
+        }
+    }
+
+    private boolean isKeyFile(Path path) {
+        String name = path.getFileName().toString();
+        return name.endsWith(".key") || name.endsWith(".pub");
+    }
+
+    private Keys load(String fingerprint) {
+        Map<String, PublicKey> publicKeys = new LinkedHashMap<>();
+        Map<String, Path> privateKeyFiles = new HashMap<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : files.sorted().toList()) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(".pub")) {
+                    publicKeys.put(kid(name), readPublicKey(file));
+                } else if (name.endsWith(".key")) {
+                    privateKeyFiles.put(kid(name), file);
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot list JWT keys directory " + dir, e);
+        }
+
+        // Pueden firmar las claves cuya .pub lleva publicada publishDelay y la que ya está firmando
+        long now = System.currentTimeMillis();
+        String current = signingKid();
+        Map<String, Path> published = new HashMap<>();
+        long pendingUntil = Long.MAX_VALUE;
+        for (Map.Entry<String, Path> entry : privateKeyFiles.entrySet()) {
+            if (!publicKeys.containsKey(entry.getKey())) {
+                continue;
+            }
+            long publishedAt = lastModified(entry.getValue().resolveSibling(entry.getKey() + ".pub")) + publishDelay.toMillis();
+            if (publishedAt <= now || entry.getKey().equals(current)) {
+                published.put(entry.getKey(), entry.getValue());
+            } else {
+                pendingUntil = Math.min(pendingUntil, publishedAt);
+            }
+        }
+
+        SigningKey signing = null;
+        String kid;
+        if (activeKid != null) {
+            kid = activeKid;
+            pendingUntil = Long.MAX_VALUE;
+        } else if (published.isEmpty()) {
+            // Primera clave: no hay otra con la que firmar mientras se publica
+            kid = newest(privateKeyFiles);
+            pendingUntil = Long.MAX_VALUE;
+        } else {
+            kid = newest(published);
+        }
+        if (kid != null) {
+            Path file = privateKeyFiles.get(kid);
+            if (file == null || !publicKeys.containsKey(kid)) {
+                throw new IllegalStateException("JWT signing key '" + kid + "' needs " + kid + ".key and " + kid + ".pub in " + dir);
+            }
+            signing = new SigningKey(kid, readPrivateKey(file));
+        }
+        return new Keys(signing, Map.copyOf(publicKeys), jwks(publicKeys), fingerprint, pendingUntil);
+    }
+
+    private String newest(Map<String, Path> privateKeyFiles) {
+        return privateKeyFiles.entrySet().stream()
+                .max(Comparator.comparingLong((Map.Entry<String, Path> e) -> lastModified(e.getValue()))
+                        .thenComparing(Map.Entry::getKey))
+                .map(Map.Entry::getKey)
+                .orElse(null);
+    }
+
+    private long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read JWT key file " + file, e);
+        }
+    }
+
+    private String jwks(Map<String, PublicKey> publicKeys) {
+        List<Map<String, ?>> jwks = new ArrayList<>();
+        publicKeys.forEach((kid, key) -> {
+            PublicJwk<?> jwk = Jwks.builder().key(key)
+                    .id(kid)
+                    .publicKeyUse("sig")
+                    .algorithm(algorithm(key))
+                    .build();
+            jwks.add(jwk);
+        });
+        try {
+            return objectMapper.writeValueAsString(Map.of("keys", jwks));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize JWKS", e);
+        }
+    }
+
+    // Algoritmo JWS que corresponde a la clave (el mismo que elige jjwt al firmar)
+    private static String algorithm(PublicKey key) {
+        if (key instanceof ECKey ec) {
+            int bits = ec.getParams().getCurve().getField().getFieldSize();
+            return bits <= 256 ? "ES256" : bits <= 384 ? "ES384" : "ES512";
+        }
+        return "EdDSA";
+    }
+
+    private static String kid(String fileName) {
+        return fileName.substring(0, fileName.lastIndexOf('.'));
+    }
+
+    private static PublicKey readPublicKey(Path file) {
+        X509EncodedKeySpec spec = new X509EncodedKeySpec(pem(file));
+        for (String algorithm : List.of("EC", "Ed25519", "Ed448")) {
+            try {
+                return KeyFactory.getInstance(algorithm).generatePublic(spec);
+            } catch (GeneralSecurityException ignored) {
+                // Se prueba el siguiente tipo de clave
+            }
+        }
+        throw new IllegalStateException("Unsupported JWT public key " + file + " (expected EC or EdDSA, X.509 PEM)");
+    }
+
+    private static PrivateKey readPrivateKey(Path file) {
+        PKCS8EncodedKeySpec spec = new PKCS8EncodedKeySpec(pem(file));
+        for (String algorithm : List.of("EC", "Ed25519", "Ed448")) {
+            try {
+                return KeyFactory.getInstance(algorithm).generatePrivate(spec);
+            } catch (GeneralSecurityException ignored) {
+                // Se prueba el siguiente tipo de clave
+            }
+        }
+        throw new IllegalStateException("Unsupported JWT private key " + file + " (expected EC or EdDSA, unencrypted PKCS#8 PEM)");
+    }
+
+    private static byte[] pem(Path file) {
+        try {
+            String base64 = Files.readAllLines(file, StandardCharsets.US_ASCII).stream()
+                    .filter(line -> !line.startsWith("-----"))
+                    .reduce("", String::concat);
+            return Base64.getMimeDecoder().decode(base64);
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalStateException("Cannot read JWT key file " + file, e);
+        }
+    }
+}
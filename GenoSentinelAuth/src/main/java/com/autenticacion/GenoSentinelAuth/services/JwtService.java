@@ -3,22 +3,37 @@ package com.autenticacion.GenoSentinelAuth.services;
 // Importa las clases necesarias para trabajar con JWT
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SecurityException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
+import java.security.Key;
+import java.security.PublicKey;
 import java.time.Instant;
 import java.util.Date;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Servicio para la gestión de tokens JWT.
  * Permite generar y validar tokens para autenticación y autorización.
- * Utiliza una clave secreta y un tiempo de expiración configurable.
+ * Si hay claves asimétricas en JwtKeyRing firma con la clave activa (ES256/EdDSA) e incluye su kid
+ * en la cabecera; si no, firma con la clave secreta (HS256). Al validar, los tokens con kid se verifican
+ * con la clave pública correspondiente. Los tokens sin kid (HS256 con jwt.secret) solo se aceptan mientras
+ * no haya claves asimétricas o, durante la migración a ellas, con jwt.legacy-hs256.enabled=true.
+ * El parser se construye una sola vez y se reutiliza (es inmutable y seguro entre hilos).
+ * Publica el Timer auth.jwt (operation=generate|parse, outcome=success|invalid).
  */
 @Service
 public class JwtService {
@@ -30,20 +45,68 @@ public class JwtService {
      * Tiempo de expiración de los tokens en minutos.
      */
     private final long expMinutes;
+    /**
+     * Claves asimétricas de firma y verificación (con rotación).
+     */
+    private final JwtKeyRing keyRing;
+    /**
+     * Si se aceptan tokens HS256 sin kid aunque ya se firme con claves asimétricas.
+     */
+    private final boolean legacyHs256;
+    /**
+     * Parser JWT preconstruido con la clave de verificación.
+     */
+    private final JwtParser parser;
+    /**
+     * Tiempos de firma y de validación (válidos / rechazados).
+     */
+    private final Timer generateTimer;
+    private final Timer parseTimer;
+    private final Timer invalidTimer;
 
     /**
-     * Constructor que inicializa la clave secreta y el tiempo de expiración.
+     * Datos del token que usa el gateway: usuario, expiración y roles.
+     * @param subject username del token
+     * @param expiration fecha de expiración, o null si el token no la tiene
+     * @param roles roles del claim "roles" (lista vacía si no existe)
+     * @param keyId kid de la clave asimétrica que firmó el token, o null si se firmó con la clave secreta
+     */
+    public record TokenClaims(String subject, Instant expiration, List<String> roles, String keyId) {
+    }
+
+    /**
+     * Constructor que inicializa la clave secreta, el tiempo de expiración y las claves asimétricas.
      * @param secret clave secreta en base64 o texto plano
      * @param expMinutes minutos de expiración del token
+     * @param keyRing claves asimétricas (puede no tener ninguna)
+     * @param legacyHs256 aceptar tokens HS256 sin kid con claves asimétricas activas (solo para migrar)
+     * @param registry registro de métricas
      */
     public JwtService(@Value("${jwt.secret}") String secret,
-                      @Value("${jwt.exp-min}") long expMinutes) {
+                      @Value("${jwt.exp-min}") long expMinutes,
+                      JwtKeyRing keyRing,
+                      @Value("${jwt.legacy-hs256.enabled:false}") boolean legacyHs256,
+                      MeterRegistry registry) {
         // Decodifica la clave secreta desde base64 si corresponde, o la usa como texto plano
         byte[] raw = secret.matches("^[A-Za-z0-9+/=]+$") ? Decoders.BASE64.decode(secret) : secret.getBytes();
         // Genera la clave secreta para verificar JWT
         this.key = Keys.hmacShaKeyFor(raw);
         // Guarda el tiempo de expiracion configurado
         this.expMinutes = expMinutes;
+        this.keyRing = keyRing;
+        this.legacyHs256 = legacyHs256;
+        // Construye el parser una única vez; la clave se elige según el kid de cada token
+        this.parser = Jwts.parser()
+                .keyLocator(new LocatorAdapter<Key>() {
+                    @Override
+                    protected Key locate(JwsHeader header) {
+                        return verificationKey(header.getKeyId());
+                    }
+                })
+                .build();
+        this.generateTimer = timer(registry, "generate", "success");
+        this.parseTimer = timer(registry, "parse", "success");
+        this.invalidTimer = timer(registry, "parse", "invalid");
     }
 
     /**
@@ -53,18 +116,26 @@ public class JwtService {
      * @return token JWT firmado
      */
     public String generate(String subject, List<String> roles) {
+        long start = System.nanoTime();
         Instant now = Instant.now(); // Obtiene el instante actual
         List<String> safeRoles = roles == null ? List.of() : roles; // Asegura que la lista de roles no sea nula
         // Construye el token JWT
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
                 .subject(subject) // Establece el username
-                .claims(Map.of("roles", safeRoles)) // Agrega los roles como claim personalizado
+                .claim("roles", safeRoles) // Agrega los roles como claim personalizado
                 .issuedAt(Date.from(now)) // Fecha de emision
-                .expiration(Date.from(now.plusSeconds(expMinutes * 60))) // Fecha de expiracion
-                // Firma el token con la clave y algoritmo seguro
-                .signWith(key)
-                .signWith(key, Jwts.SIG.HS256)
-                .compact(); // Finaliza y retorna el token JWT
+                .expiration(Date.from(now.plusSeconds(expMinutes * 60))); // Fecha de expiracion
+        // Firma con la clave asimétrica activa (con su kid) o, si no hay, con la clave secreta
+        JwtKeyRing.SigningKey signing = keyRing.signingKey();
+        if (signing != null) {
+            builder.header().keyId(signing.kid()).and()
+                    .signWith(signing.key());
+        } else {
+            builder.signWith(key, Jwts.SIG.HS256);
+        }
+        String token = builder.compact(); // Finaliza el token JWT
+        generateTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return token;
     }
 
     /**
@@ -77,11 +148,81 @@ public class JwtService {
         if (token.startsWith("Bearer ")) {
             token = token.substring(7);
         }
-        // Parsea y valida el token JWT, devolviendo los claims
-        return Jwts.parser()
-                .verifyWith(key)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        // Valida el token con el parser reutilizable, devolviendo los claims
+        return verify(token).getPayload();
+    }
+
+    /**
+     * Valida un token JWT y extrae solo sub, exp y roles.
+     * @param token token JWT a validar
+     * @return datos del token usados para autenticar la petición
+     */
+    public TokenClaims parseClaims(String token) {
+        Jws<Claims> jws = verify(token.startsWith("Bearer ") ? token.substring(7) : token);
+        Claims claims = jws.getPayload();
+        Date expiration = claims.getExpiration();
+        return new TokenClaims(
+                claims.getSubject(),
+                expiration == null ? null : expiration.toInstant(),
+                roles(claims.get("roles")),
+                jws.getHeader().getKeyId()
+        );
+    }
+
+    // Valida la firma y la expiración midiendo el tiempo, por separado si el token se rechaza
+    private Jws<Claims> verify(String token) {
+        long start = System.nanoTime();
+        try {
+            Jws<Claims> jws = parser.parseSignedClaims(token);
+            parseTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return jws;
+        } catch (RuntimeException e) {
+            invalidTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+
+    private static Timer timer(MeterRegistry registry, String operation, String outcome) {
+        return Timer.builder("auth.jwt")
+                .description("Tiempo de firma y validación de tokens JWT")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    /**
+     * Indica si una clave sigue siendo válida para verificar (no se ha retirado en una rotación).
+     * @param keyId kid del token, o null para la clave secreta
+     */
+    public boolean isVerificationKey(String keyId) {
+        return keyId == null ? acceptsSecretKey() : keyRing.verificationKey(keyId) != null;
+    }
+
+    /**
+     * Clave para verificar un token: la pública de su kid o la secreta si no tiene kid.
+     * jjwt rechaza después el token si el algoritmo de la cabecera no corresponde al tipo de clave.
+     */
+    private Key verificationKey(String kid) {
+        if (kid == null) {
+            if (!acceptsSecretKey()) {
+                throw new SecurityException("JWT without key id rejected: HS256 tokens are no longer accepted");
+            }
+            return key;
+        }
+        PublicKey publicKey = keyRing.verificationKey(kid);
+        if (publicKey == null) {
+            throw new SecurityException("Unknown JWT key id: " + kid);
+        }
+        return publicKey;
+    }
+
+    // La clave secreta verifica mientras sea la de firma o, en la migración a claves asimétricas, con la opción legacy
+    private boolean acceptsSecretKey() {
+        return keyRing.signingKey() == null || legacyHs256;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> roles(Object claim) {
+        return claim instanceof List<?> list ? (List<String>) list : List.of();
     }
 }
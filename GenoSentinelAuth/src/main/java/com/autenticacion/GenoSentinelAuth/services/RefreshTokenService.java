@@ -0,0 +1,124 @@
+package com.autenticacion.GenoSentinelAuth.services;
+
+import com.autenticacion.GenoSentinelAuth.exceptions.InvalidRefreshTokenException;
+import com.autenticacion.GenoSentinelAuth.models.entities.RefreshToken;
+import com.autenticacion.GenoSentinelAuth.models.entities.Users;
+import com.autenticacion.GenoSentinelAuth.repositories.RefreshTokenRepository;
+import com.autenticacion.GenoSentinelAuth.repositories.UsersRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Emisión y rotación de refresh tokens.
+ * El token es un valor aleatorio opaco (256 bits, base64url) que se entrega al cliente junto al JWT;
+ * en la base de datos solo se guarda su SHA-256. Cada uso lo consume y emite uno nuevo, de modo que
+ * renovar el JWT cuesta una lectura indexada y dos escrituras, sin BCrypt.
+ * Duración configurable con jwt.refresh.ttl; los tokens expirados se borran cada jwt.refresh.cleanup-interval.
+ * Cada usuario tiene como mucho jwt.refresh.max-per-user tokens activos: al emitir uno nuevo se borran
+ * sus tokens expirados y los más antiguos que sobren (una sesión por dispositivo, sin crecer sin límite).
+ */
+@Service
+public class RefreshTokenService {
+
+    /**
+     * Resultado de consumir un refresh token: el usuario y su nuevo refresh token.
+     */
+    public record Rotation(Users user, String refreshToken) {
+    }
+
+    private final RefreshTokenRepository refreshTokens;
+    private final UsersRepository usersRepository;
+    private final Duration ttl;
+    private final int maxPerUser;
+    private final SecureRandom random = new SecureRandom();
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokens,
+                               UsersRepository usersRepository,
+                               @Value("${jwt.refresh.ttl:7d}") Duration ttl,
+                               @Value("${jwt.refresh.max-per-user:10}") int maxPerUser) {
+        this.refreshTokens = refreshTokens;
+        this.usersRepository = usersRepository;
+        this.ttl = ttl;
+        this.maxPerUser = Math.max(1, maxPerUser);
+    }
+
+    /**
+     * Emite un refresh token nuevo para el usuario.
+     * @param userId id del usuario (puede venir del caché de usuarios, sin entidad cargada)
+     * @return token en claro (solo se devuelve aquí, no se puede recuperar después)
+     */
+    @Transactional
+    public String issue(Long userId) {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        Instant now = Instant.now();
+        // Deja sitio para el nuevo: fuera los expirados y los más antiguos por encima del máximo
+        refreshTokens.deleteExpiredByUser(userId, now);
+        List<Long> ids = refreshTokens.findIdsByUserNewestFirst(userId);
+        if (ids.size() >= maxPerUser) {
+            refreshTokens.deleteAllByIdInBatch(ids.subList(maxPerUser - 1, ids.size()));
+        }
+
+        RefreshToken entity = new RefreshToken();
+        entity.setTokenHash(hash(token));
+        // Referencia por id: no hace falta cargar el usuario
+        entity.setUser(usersRepository.getReferenceById(userId));
+        entity.setCreatedAt(now);
+        entity.setExpiresAt(now.plus(ttl));
+        refreshTokens.save(entity);
+        return token;
+    }
+
+    /**
+     * Consume un refresh token y emite el siguiente.
+     * Si dos peticiones usan el mismo token a la vez, solo la que lo borra primero tiene éxito.
+     * @throws InvalidRefreshTokenException si el token no existe, ya se usó, expiró o el usuario está desactivado
+     */
+    @Transactional
+    public Rotation rotate(String token) {
+        RefreshToken current = refreshTokens.findByTokenHash(hash(token))
+                .orElseThrow(() -> new InvalidRefreshTokenException("Invalid refresh token"));
+
+        if (refreshTokens.deleteByIdAndCount(current.getId()) != 1) {
+            throw new InvalidRefreshTokenException("Refresh token already used");
+        }
+        if (current.getExpiresAt().isBefore(Instant.now())) {
+            throw new InvalidRefreshTokenException("Refresh token expired");
+        }
+        Users user = current.getUser();
+        if (!user.isEnabled()) {
+            throw new InvalidRefreshTokenException("User account is disabled");
+        }
+        return new Rotation(user, issue(user.getId()));
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.refresh.cleanup-interval:PT1H}")
+    @Transactional
+    public void deleteExpired() {
+        refreshTokens.deleteExpired(Instant.now());
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 está garantizado en toda JVM
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.autenticacion.GenoSentinelAuth.services;
+
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Políticas por ruta del gateway para las consultas idempotentes: timeout y hedging.
+ * Se configuran con gateway.route.&lt;ruta&gt;.timeout y gateway.route.&lt;ruta&gt;.hedge.*
+ * (enabled, percentile, max-rate, min-delay). Una ruta sin propiedades no tiene timeout propio ni hedging.
+ */
+@Service
+public class RoutePolicies {
+
+    private final Map<String, RoutePolicy> policies = new ConcurrentHashMap<>();
+    private final Environment env;
+
+    public RoutePolicies(Environment env) {
+        this.env = env;
+    }
+
+    public RoutePolicy forRoute(String route) {
+        return policies.computeIfAbsent(route, this::create);
+    }
+
+    private RoutePolicy create(String route) {
+        String prefix = "gateway.route." + route + ".";
+        return new RoutePolicy(
+                env.getProperty(prefix + "timeout", Duration.class),
+                env.getProperty(prefix + "hedge.enabled", Boolean.class, false),
+                env.getProperty(prefix + "hedge.percentile", Double.class, 0.95),
+                env.getProperty(prefix + "hedge.max-rate", Double.class, 0.05),
+                env.getProperty(prefix + "hedge.min-delay", Duration.class, Duration.ofMillis(10))
+        );
+    }
+
+    /**
+     * Estado de una ruta. Guarda las últimas latencias en un buffer circular para calcular
+     * el retardo del hedge (percentil configurado) y limita los hedges con un presupuesto:
+     * cada petición aporta max-rate fichas y cada hedge consume una, de modo que nunca se
+     * envían más de max-rate × peticiones intentos extra.
+     */
+    public static final class RoutePolicy {
+
+        private static final int SAMPLES = 512;
+        // Cada cuántas muestras se recalcula el percentil (y mínimo de muestras para empezar a hacer hedge)
+        private static final int RECOMPUTE_EVERY = 64;
+        // Las fichas se guardan en milésimas para poder usar un AtomicLong
+        private static final long TOKEN = 1000;
+        private static final long MAX_BUDGET = 10 * TOKEN;
+
+        private final Duration timeout;
+        private final boolean hedgeEnabled;
+        private final double percentile;
+        private final long budgetPerRequest;
+        private final long minDelayNanos;
+
+        private final AtomicLongArray latencies = new AtomicLongArray(SAMPLES);
+        private final AtomicLong recorded = new AtomicLong();
+        private final AtomicLong hedgeBudget = new AtomicLong();
+        private volatile long hedgeDelayNanos = -1;
+
+        RoutePolicy(Duration timeout, boolean hedgeEnabled, double percentile, double maxRate, Duration minDelay) {
+            this.timeout = timeout;
+            this.hedgeEnabled = hedgeEnabled;
+            this.percentile = percentile;
+            this.budgetPerRequest = Math.round(maxRate * TOKEN);
+            this.minDelayNanos = minDelay.toNanos();
+        }
+
+        /**
+         * @return timeout de la ruta, o null si usa solo el response-timeout del pool
+         */
+        public Duration timeout() {
+            return timeout;
+        }
+
+        /**
+         * Registra una petición nueva y devuelve cuánto esperar antes de lanzar el hedge,
+         * o null si la ruta no hace hedging o aún no hay suficientes muestras.
+         */
+        public Duration hedgeDelay() {
+            if (!hedgeEnabled) {
+                return null;
+            }
+            hedgeBudget.getAndUpdate(b -> Math.min(MAX_BUDGET, b + budgetPerRequest));
+            long delay = hedgeDelayNanos;
+            return delay < 0 ? null : Duration.ofNanos(Math.max(delay, minDelayNanos));
+        }
+
+        /**
+         * Consume una ficha del presupuesto de hedges.
+         * @return true si se puede lanzar el segundo intento
+         */
+        public boolean tryAcquireHedge() {
+            long budget;
+            do {
+                budget = hedgeBudget.get();
+                if (budget < TOKEN) {
+                    return false;
+                }
+            } while (!hedgeBudget.compareAndSet(budget, budget - TOKEN));
+            return true;
+        }
+
+        /**
+         * Registra la latencia de un intento exitoso.
+         */
+        public void record(long nanos) {
+            if (!hedgeEnabled) {
+                return;
+            }
+            long n = recorded.getAndIncrement();
+            latencies.set((int) (n % SAMPLES), nanos);
+            if ((n + 1) % RECOMPUTE_EVERY == 0) {
+                recompute((int) Math.min(n + 1, SAMPLES));
+            }
+        }
+
+        private void recompute(int count) {
+            long[] copy = new long[count];
+            for (int i = 0; i < count; i++) {
+                copy[i] = latencies.get(i);
+            }
+            Arrays.sort(copy);
+            hedgeDelayNanos = copy[(int) Math.min(count - 1, Math.floor(percentile * count))];
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.autenticacion.GenoSentinelAuth.services;
+
+import com.autenticacion.GenoSentinelAuth.models.entities.Users;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Listener JPA de Users que invalida el caché de usuarios cuando uno se crea, se modifica
+ * (contraseña, flag active...) o se borra. Si hay una transacción activa la invalidación
+ * se hace tras el commit, para que otra petición no vuelva a cachear el valor anterior.
+ * Hibernate lo crea a través de Spring; el servicio se resuelve de forma perezosa porque
+ * depende de los repositorios, que a su vez dependen del EntityManagerFactory.
+ */
+public class UserCacheInvalidator {
+
+    private final ObjectProvider<UserCacheService> userCache;
+
+    public UserCacheInvalidator(ObjectProvider<UserCacheService> userCache) {
+        this.userCache = userCache;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Users user) {
+        String username = user.getUsername();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidate(username);
+                }
+            });
+        } else {
+            invalidate(username);
+        }
+    }
+
+    private void invalidate(String username) {
+        UserCacheService cache = userCache.getIfAvailable();
+        if (cache != null) {
+            cache.invalidateUser(username);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.autenticacion.GenoSentinelAuth.services;
+
+import com.autenticacion.GenoSentinelAuth.models.entities.Role;
+import com.autenticacion.GenoSentinelAuth.models.entities.Users;
+import com.autenticacion.GenoSentinelAuth.repositories.RoleRepository;
+import com.autenticacion.GenoSentinelAuth.repositories.UsersRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Caché en memoria de usuarios (por username, como copia inmutable con el nombre de su rol) y de roles
+ * (por nombre, solo id y nombre), para que la autenticación en régimen estable no consulte la base de datos.
+ * No se cachean entidades: una entidad compartida entre peticiones podría modificarse (o guardarse) desde
+ * cualquiera de ellas; para cambiar un usuario hay que cargarlo por id desde el repositorio, y cada
+ * findRole devuelve un Role nuevo.
+ * Los usuarios inexistentes no se cachean. Los usuarios se invalidan al crearse, modificarse o borrarse
+ * (ver UserCacheInvalidator), pero solo en esta réplica: en las demás un cambio de contraseña o del flag
+ * active tarda como mucho security.cache.users.ttl en verse, por eso ese TTL es corto.
+ * Configurable con security.cache.users.* y security.cache.roles.* (ttl, max-size);
+ * publica métricas cache.* con cache=auth.users y cache=auth.roles.
+ */
+@Service
+public class UserCacheService {
+
+    /**
+     * Datos del usuario que necesitan el login y la emisión de tokens.
+     * @param passwordHash hash BCrypt de la contraseña
+     * @param role nombre del rol (sin el prefijo ROLE_)
+     */
+    public record CachedUser(Long id, String username, String email, String passwordHash, boolean enabled, String role) {
+
+        static CachedUser of(Users user) {
+            return new CachedUser(user.getId(), user.getUsername(), user.getEmail(), user.getPassword(),
+                    user.isEnabled(), user.getRole().getName());
+        }
+    }
+
+    private record CachedRole(Long id, String name) {
+
+        Role toEntity() {
+            Role role = new Role();
+            role.setId(id);
+            role.setName(name);
+            return role;
+        }
+    }
+
+    private final Cache<String, CachedUser> users;
+    private final Cache<String, CachedRole> roles;
+    private final UsersRepository usersRepository;
+    private final RoleRepository roleRepository;
+
+    public UserCacheService(UsersRepository usersRepository,
+                            RoleRepository roleRepository,
+                            MeterRegistry registry,
+                            @Value("${security.cache.users.ttl:30s}") Duration usersTtl,
+                            @Value("${security.cache.users.max-size:10000}") long usersMaxSize,
+                            @Value("${security.cache.roles.ttl:1h}") Duration rolesTtl,
+                            @Value("${security.cache.roles.max-size:100}") long rolesMaxSize) {
+        this.usersRepository = usersRepository;
+        this.roleRepository = roleRepository;
+        this.users = Caffeine.newBuilder()
+                .maximumSize(usersMaxSize)
+                .expireAfterWrite(usersTtl)
+                .recordStats()
+                .build();
+        this.roles = Caffeine.newBuilder()
+                .maximumSize(rolesMaxSize)
+                .expireAfterWrite(rolesTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, users, "auth.users");
+        CaffeineCacheMetrics.monitor(registry, roles, "auth.roles");
+    }
+
+    /**
+     * Busca un usuario por username, primero en el caché. Los usuarios inexistentes no se cachean:
+     * un usuario registrado en otra réplica se encuentra en la siguiente petición.
+     */
+    public Optional<CachedUser> findByUsername(String username) {
+        return Optional.ofNullable(users.get(username, u -> usersRepository.findByUsername(u).map(CachedUser::of).orElse(null)));
+    }
+
+    /**
+     * Busca un rol por nombre, primero en el caché, y devuelve un Role nuevo (no gestionado) con su id y nombre.
+     * Los roles inexistentes no se cachean.
+     */
+    public Optional<Role> findRole(String name) {
+        return Optional.ofNullable(roles.get(name, n -> roleRepository.findByName(n)
+                        .map(role -> new CachedRole(role.getId(), role.getName()))
+                        .orElse(null)))
+                .map(CachedRole::toEntity);
+    }
+
+    public void invalidateUser(String username) {
+        users.invalidate(username);
+    }
+
+    public void invalidateRoles() {
+        roles.invalidateAll();
+    }
+}
@@ -0,0 +1,184 @@
+package com.autenticacion.GenoSentinelAuth.services;
+
+import com.autenticacion.GenoSentinelAuth.auth.BoundedPasswordEncoder;
+import com.autenticacion.GenoSentinelAuth.exceptions.UserAlreadyExistsException;
+import com.autenticacion.GenoSentinelAuth.models.dto.UserImportRow;
+import com.autenticacion.GenoSentinelAuth.models.entities.Users;
+import com.autenticacion.GenoSentinelAuth.repositories.UsersRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+
+/**
+ * Alta masiva de usuarios (por ejemplo, el personal de un hospital nuevo).
+ * Valida todas las filas, comprueba en pocas consultas qué usernames y emails ya existen,
+ * calcula los hashes BCrypt en paralelo (BoundedPasswordEncoder.encodeAll) y guarda los usuarios
+ * en transacciones de security.import.batch-size filas, que Hibernate envía como lotes JDBC.
+ * Si un lote falla (por ejemplo, alguien se registró a la vez con el mismo username) se reintenta
+ * fila a fila para marcar solo las que fallan. Cada fila tiene su propio resultado.
+ */
+@Service
+public class UserImportService {
+
+    /**
+     * Resultado de una fila: error es null si el usuario se creó.
+     */
+    public record RowResult(int index, String username, String error) {
+        public boolean success() {
+            return error == null;
+        }
+    }
+
+    // Tamaño máximo de las listas IN al comprobar usernames / emails existentes
+    private static final int LOOKUP_CHUNK = 500;
+
+    private final UsersRepository usersRepository;
+    private final UserCacheService userCache;
+    private final BoundedPasswordEncoder passwordEncoder;
+    private final TransactionTemplate transaction;
+    private final int batchSize;
+
+    public UserImportService(UsersRepository usersRepository,
+                             UserCacheService userCache,
+                             BoundedPasswordEncoder passwordEncoder,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${security.import.batch-size:50}") int batchSize) {
+        this.usersRepository = usersRepository;
+        this.userCache = userCache;
+        this.passwordEncoder = passwordEncoder;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Crea los usuarios de las filas válidas.
+     * @return un resultado por fila, en el mismo orden de entrada
+     */
+    public List<RowResult> importUsers(List<UserImportRow> rows) {
+        String[] errors = new String[rows.size()];
+        validate(rows, errors);
+        rejectExisting(rows, errors);
+
+        List<Integer> valid = new ArrayList<>();
+        List<String> passwords = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            if (errors[i] == null) {
+                valid.add(i);
+                passwords.add(rows.get(i).getPassword());
+            }
+        }
+
+        List<String> hashes = passwordEncoder.encodeAll(passwords);
+        List<Users> users = new ArrayList<>(valid.size());
+        for (int k = 0; k < valid.size(); k++) {
+            UserImportRow row = rows.get(valid.get(k));
+            Users user = new Users();
+            user.setUsername(row.getUsername());
+            user.setEmail(row.getEmail());
+            user.setPassword(hashes.get(k));
+            user.setRole(userCache.findRole(roleName(row)).orElseThrow());
+            users.add(user);
+        }
+
+        for (int from = 0; from < users.size(); from += batchSize) {
+            int to = Math.min(from + batchSize, users.size());
+            save(users.subList(from, to), valid.subList(from, to), errors);
+        }
+
+        List<RowResult> results = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            results.add(new RowResult(i, rows.get(i).getUsername(), errors[i]));
+        }
+        return results;
+    }
+
+    // Campos obligatorios (y longitudes de la tabla users), rol existente y duplicados dentro del propio lote
+    private void validate(List<UserImportRow> rows, String[] errors) {
+        Set<String> usernames = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        for (int i = 0; i < rows.size(); i++) {
+            UserImportRow row = rows.get(i);
+            if (isBlank(row.getUsername())) {
+                errors[i] = "Username cannot be empty";
+            } else if (isBlank(row.getEmail())) {
+                errors[i] = "Email cannot be empty";
+            } else if (row.getUsername().length() > 100 || row.getEmail().length() > 150) {
+                errors[i] = "Username or email too long";
+            } else if (isBlank(row.getPassword())) {
+                errors[i] = "Password cannot be empty";
+            } else if (userCache.findRole(roleName(row)).isEmpty()) {
+                errors[i] = "Role " + roleName(row) + " not found";
+            } else if (!usernames.add(row.getUsername())) {
+                errors[i] = "Duplicate username in import";
+            } else if (!emails.add(row.getEmail())) {
+                errors[i] = "Duplicate email in import";
+            }
+        }
+    }
+
+    // Usernames y emails ya registrados, consultados por bloques en lugar de fila a fila
+    private void rejectExisting(List<UserImportRow> rows, String[] errors) {
+        Set<String> existingUsernames = new HashSet<>();
+        Set<String> existingEmails = new HashSet<>();
+        List<String> usernames = new ArrayList<>();
+        List<String> emails = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            if (errors[i] == null) {
+                usernames.add(rows.get(i).getUsername());
+                emails.add(rows.get(i).getEmail());
+            }
+        }
+        for (int from = 0; from < usernames.size(); from += LOOKUP_CHUNK) {
+            int to = Math.min(from + LOOKUP_CHUNK, usernames.size());
+            existingUsernames.addAll(usersRepository.findExistingUsernames(usernames.subList(from, to)));
+            existingEmails.addAll(usersRepository.findExistingEmails(emails.subList(from, to)));
+        }
+        for (int i = 0; i < rows.size(); i++) {
+            if (errors[i] != null) {
+                continue;
+            }
+            if (existingUsernames.contains(rows.get(i).getUsername())) {
+                errors[i] = "Username already exists";
+            } else if (existingEmails.contains(rows.get(i).getEmail())) {
+                errors[i] = "Email already registered";
+            }
+        }
+    }
+
+    // Guarda un lote en una transacción; si falla, reintenta cada usuario en la suya
+    private void save(List<Users> users, List<Integer> indexes, String[] errors) {
+        try {
+            transaction.executeWithoutResult(status -> {
+                usersRepository.saveAll(users);
+                usersRepository.flush();
+            });
+        } catch (DataIntegrityViolationException e) {
+            for (int k = 0; k < users.size(); k++) {
+                Users user = users.get(k);
+                // El id asignado en el intento fallido no llegó a guardarse: se persiste como nuevo
+                user.setId(null);
+                try {
+                    transaction.executeWithoutResult(status -> usersRepository.saveAndFlush(user));
+                } catch (DataIntegrityViolationException rowError) {
+                    // Solo una clave única de username/email es un duplicado; el resto se informa con su causa
+                    UserAlreadyExistsException duplicate = UserAlreadyExistsException.from(rowError);
+                    errors[indexes.get(k)] = duplicate != null
+                            ? duplicate.getMessage()
+                            : "Could not save user: " + rowError.getMostSpecificCause().getMessage();
+                }
+            }
+        }
+    }
+
+    private static String roleName(UserImportRow row) {
+        return isBlank(row.getRole()) ? "USER" : row.getRole().trim();
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+}
@@ -0,0 +1,87 @@
+package com.autenticacion.GenoSentinelAuth.auth;
+
+import com.autenticacion.GenoSentinelAuth.exceptions.GlobalExceptionHandler;
+import com.autenticacion.GenoSentinelAuth.exceptions.ServiceBusyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+/**
+ * Admisión del pool de BCrypt: con los hilos y la cola llenos se rechaza con 503 y Retry-After.
+ */
+class BoundedPasswordEncoderTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private BoundedPasswordEncoder encoder;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        encoder.destroy();
+    }
+
+    @Test
+    void hashesAndMatchesThroughThePool() {
+        encoder = new BoundedPasswordEncoder(4, 2, 4, new SimpleMeterRegistry());
+
+        String hash = encoder.encode("secret");
+
+        assertThat(encoder.matches("secret", hash)).isTrue();
+        assertThat(encoder.matches("other", hash)).isFalse();
+        assertThat(encoder.encodeAll(List.of("a", "b", "c", "d", "e")))
+                .hasSize(5)
+                .allSatisfy(h -> assertThat(h).startsWith("$2a$04$"));
+    }
+
+    @Test
+    void fullPoolIsRejectedWith503AndRetryAfter() throws InterruptedException {
+        encoder = new BoundedPasswordEncoder(4, 1, 1, new SimpleMeterRegistry());
+        saturate(encoder, 2);
+
+        assertThatThrownBy(() -> encoder.encode("secret")).isInstanceOf(ServiceBusyException.class);
+        assertThatThrownBy(() -> encoder.matches("secret", "$2a$04$x")).isInstanceOf(ServiceBusyException.class);
+        // encodeAll no espera por trabajo ajeno: si no tiene ningún hash en curso, también rechaza
+        assertThatThrownBy(() -> encoder.encodeAll(List.of("a", "b"))).isInstanceOf(ServiceBusyException.class);
+
+        ServiceBusyException busy = catchThrowableOfType(() -> encoder.encode("secret"), ServiceBusyException.class);
+        ResponseEntity<String> response = new GlobalExceptionHandler().handleServiceBusyException(busy);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+    }
+
+    @Test
+    void retryAfterIsTheTimeToDrainAFullQueue() throws InterruptedException {
+        // Coste 12 ≈ 240 ms por hash; (8 en cola + 2 en curso) / 2 hilos = 5 turnos ≈ 1,2 s
+        encoder = new BoundedPasswordEncoder(12, 2, 8, new SimpleMeterRegistry());
+        saturate(encoder, 10);
+
+        ServiceBusyException busy = catchThrowableOfType(() -> encoder.encode("secret"), ServiceBusyException.class);
+        assertThat(busy.getRetryAfterSeconds()).isEqualTo(2);
+    }
+
+    // Ocupa los hilos y la cola del pool con tareas que esperan a release
+    private void saturate(BoundedPasswordEncoder encoder, int tasks) throws InterruptedException {
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) ReflectionTestUtils.getField(encoder, "executor");
+        CountDownLatch running = new CountDownLatch(executor.getMaximumPoolSize());
+        for (int i = 0; i < tasks; i++) {
+            executor.submit(() -> {
+                running.countDown();
+                release.await();
+                return null;
+            });
+        }
+        running.await();
+    }
+}
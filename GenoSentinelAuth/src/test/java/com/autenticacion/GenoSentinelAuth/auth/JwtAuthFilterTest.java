@@ -0,0 +1,124 @@
+package com.autenticacion.GenoSentinelAuth.auth;
+
+import com.autenticacion.GenoSentinelAuth.services.JwtService;
+import com.autenticacion.GenoSentinelAuth.services.JwtService.TokenClaims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Caché de tokens verificados de JwtAuthFilter: aciertos, caducidad en exp y claves retiradas.
+ */
+class JwtAuthFilterTest {
+
+    private static final String TOKEN = "header.payload.signature";
+
+    private final JwtService jwtService = mock(JwtService.class);
+
+    @BeforeEach
+    void setUp() {
+        when(jwtService.isVerificationKey(any())).thenReturn(true);
+    }
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void verifiedTokenIsServedFromTheCache() throws Exception {
+        when(jwtService.parseClaims(TOKEN)).thenReturn(claims(Instant.now().plusSeconds(600)));
+        JwtAuthFilter filter = filter(true);
+
+        Authentication first = send(filter, TOKEN);
+        Authentication second = send(filter, TOKEN);
+
+        assertThat(first.getName()).isEqualTo("ana");
+        assertThat(second.getName()).isEqualTo("ana");
+        assertThat(second.getAuthorities()).extracting(Object::toString).containsExactly("ROLE_ADMIN");
+        verify(jwtService, times(1)).parseClaims(TOKEN);
+    }
+
+    @Test
+    void cachedTokenStopsAuthenticatingAtItsExpiration() throws Exception {
+        when(jwtService.parseClaims(TOKEN))
+                .thenReturn(claims(Instant.now().plusMillis(300)))
+                .thenThrow(new ExpiredJwtException(null, null, "JWT expired"));
+        JwtAuthFilter filter = filter(true);
+
+        assertThat(send(filter, TOKEN)).isNotNull();
+        Thread.sleep(400);
+
+        // Pasada la expiración no se sirve del caché: se vuelve a validar y el token se rechaza
+        assertThat(send(filter, TOKEN)).isNull();
+        verify(jwtService, times(2)).parseClaims(TOKEN);
+    }
+
+    @Test
+    void tokenSignedWithARetiredKeyIsVerifiedAgain() throws Exception {
+        when(jwtService.parseClaims(TOKEN))
+                .thenReturn(claims(Instant.now().plusSeconds(600)))
+                .thenThrow(new SecurityException("Unknown kid"));
+        JwtAuthFilter filter = filter(true);
+
+        assertThat(send(filter, TOKEN)).isNotNull();
+        when(jwtService.isVerificationKey("k1")).thenReturn(false);
+
+        assertThat(send(filter, TOKEN)).isNull();
+        verify(jwtService, times(2)).parseClaims(TOKEN);
+    }
+
+    @Test
+    void invalidTokensAreNotCached() throws Exception {
+        when(jwtService.parseClaims(TOKEN)).thenThrow(new SecurityException("Bad signature"));
+        JwtAuthFilter filter = filter(true);
+
+        assertThat(send(filter, TOKEN)).isNull();
+        assertThat(send(filter, TOKEN)).isNull();
+        verify(jwtService, times(2)).parseClaims(TOKEN);
+    }
+
+    @Test
+    void disabledCacheVerifiesEveryRequest() throws Exception {
+        when(jwtService.parseClaims(TOKEN)).thenReturn(claims(Instant.now().plusSeconds(600)));
+        JwtAuthFilter filter = filter(false);
+
+        send(filter, TOKEN);
+        send(filter, TOKEN);
+
+        verify(jwtService, times(2)).parseClaims(TOKEN);
+    }
+
+    private JwtAuthFilter filter(boolean cacheEnabled) {
+        return new JwtAuthFilter(jwtService, new SimpleMeterRegistry(), cacheEnabled, 100);
+    }
+
+    private static TokenClaims claims(Instant expiration) {
+        return new TokenClaims("ana", expiration, List.of("ADMIN"), "k1");
+    }
+
+    // Autenticación que el filtro deja en el contexto de seguridad (null si el token no es válido)
+    private static Authentication send(JwtAuthFilter filter, String token) throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/gateway/clinical/patients");
+        request.addHeader("Authorization", "Bearer " + token);
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        assertThat(chain.getRequest()).isSameAs(request);
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+}
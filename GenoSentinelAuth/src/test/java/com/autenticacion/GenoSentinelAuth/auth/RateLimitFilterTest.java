@@ -0,0 +1,157 @@
+package com.autenticacion.GenoSentinelAuth.auth;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.catalina.filters.RemoteIpFilter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Cupos GCRA por regla y clave (IP o usuario), cupos por rol y respuesta 429 con Retry-After.
+ */
+class RateLimitFilterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void admitsTheBurstAndRejectsTheNextWith429() throws Exception {
+        // 1 petición cada 10 s con ráfaga de 3
+        RateLimitFilter filter = filter(env().withProperty("security.rate-limit.login.rate", "0.1")
+                .withProperty("security.rate-limit.login.burst", "3"));
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(send(filter, "/auth/login", "10.0.0.1").getStatus()).isEqualTo(200);
+        }
+        MockHttpServletResponse rejected = send(filter, "/auth/login", "10.0.0.1");
+
+        assertThat(rejected.getStatus()).isEqualTo(429);
+        // La siguiente plaza se libera un intervalo (10 s) después de la primera petición, redondeado hacia arriba
+        assertThat(rejected.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("10");
+        assertThat(rejected.getContentAsString()).isEqualTo("{\"error\":\"Too many requests\",\"status\":429,\"retryAfter\":10}");
+        assertThat(registry.get("security.rate-limit.rejected").tag("rule", "login").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void eachClientHasItsOwnBucket() throws Exception {
+        RateLimitFilter filter = filter(env());
+
+        assertThat(send(filter, "/auth/login", "10.0.0.1").getStatus()).isEqualTo(200);
+        assertThat(send(filter, "/auth/login", "10.0.0.1").getStatus()).isEqualTo(429);
+        assertThat(send(filter, "/auth/login", "10.0.0.2").getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void behindATrustedProxyClientsAreKeyedByTheirForwardedAddress() throws Exception {
+        RateLimitFilter filter = filter(env());
+        // Misma lógica que RemoteIpValve (server.forward-headers-strategy=native) con sus proxies de confianza por defecto
+        RemoteIpFilter remoteIp = new RemoteIpFilter();
+
+        assertThat(sendVia(remoteIp, filter, "10.1.0.5", "203.0.113.7").getStatus()).isEqualTo(200);
+        assertThat(sendVia(remoteIp, filter, "10.1.0.5", "203.0.113.8").getStatus()).isEqualTo(200);
+        assertThat(sendVia(remoteIp, filter, "10.1.0.5", "203.0.113.7").getStatus()).isEqualTo(429);
+
+        // Un cliente externo no puede elegir su cubeta con X-Forwarded-For
+        assertThat(sendVia(remoteIp, filter, "198.51.100.1", "203.0.113.9").getStatus()).isEqualTo(200);
+        assertThat(sendVia(remoteIp, filter, "198.51.100.1", "203.0.113.10").getStatus()).isEqualTo(429);
+    }
+
+    @Test
+    void authenticatedUsersAreKeyedByUsernameNotIp() throws Exception {
+        RateLimitFilter filter = filter(env());
+
+        authenticate("ana", "ROLE_USER");
+        assertThat(send(filter, "/gateway/clinical/patients", "10.0.0.1").getStatus()).isEqualTo(200);
+        assertThat(send(filter, "/gateway/clinical/patients", "10.0.0.2").getStatus()).isEqualTo(429);
+
+        authenticate("luis", "ROLE_USER");
+        assertThat(send(filter, "/gateway/clinical/patients", "10.0.0.1").getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void roleLimitReplacesTheRuleLimit() throws Exception {
+        RateLimitFilter filter = filter(env()
+                .withProperty("security.rate-limit.gateway.role.ADMIN.rate", "0.1")
+                .withProperty("security.rate-limit.gateway.role.ADMIN.burst", "3"));
+
+        authenticate("adm", "ROLE_ADMIN");
+        for (int i = 0; i < 3; i++) {
+            assertThat(send(filter, "/gateway/clinical/patients", "10.0.0.1").getStatus()).isEqualTo(200);
+        }
+        assertThat(send(filter, "/gateway/clinical/patients", "10.0.0.1").getStatus()).isEqualTo(429);
+    }
+
+    @Test
+    void firstMatchingRuleAppliesAndOtherPathsPassThrough() throws Exception {
+        RateLimitFilter filter = filter(env());
+
+        assertThat(send(filter, "/auth/login", "10.0.0.1").getStatus()).isEqualTo(200);
+        // Otra regla: cubeta distinta para la misma IP
+        assertThat(send(filter, "/gateway/clinical/patients", "10.0.0.1").getStatus()).isEqualTo(200);
+        for (int i = 0; i < 5; i++) {
+            assertThat(send(filter, "/auth/register", "10.0.0.1").getStatus()).isEqualTo(200);
+        }
+    }
+
+    @Test
+    void disabledFilterAdmitsEverything() throws Exception {
+        RateLimitFilter filter = filter(env().withProperty("security.rate-limit.enabled", "false"));
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(send(filter, "/auth/login", "10.0.0.1").getStatus()).isEqualTo(200);
+        }
+    }
+
+    // Dos reglas de 1 petición cada 10 s sin ráfaga: login por IP y el resto del gateway por usuario
+    private static MockEnvironment env() {
+        return new MockEnvironment()
+                .withProperty("security.rate-limit.rules", "login,gateway")
+                .withProperty("security.rate-limit.login.paths", "/auth/login")
+                .withProperty("security.rate-limit.login.key", "ip")
+                .withProperty("security.rate-limit.login.rate", "0.1")
+                .withProperty("security.rate-limit.login.burst", "1")
+                .withProperty("security.rate-limit.gateway.paths", "/gateway/**")
+                .withProperty("security.rate-limit.gateway.rate", "0.1")
+                .withProperty("security.rate-limit.gateway.burst", "1");
+    }
+
+    private RateLimitFilter filter(MockEnvironment env) {
+        return new RateLimitFilter(env, registry);
+    }
+
+    private static void authenticate(String username, String role) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(username, null, AuthorityUtils.createAuthorityList(role)));
+    }
+
+    private static MockHttpServletResponse sendVia(RemoteIpFilter remoteIp, RateLimitFilter filter, String proxy,
+                                                   String client) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/auth/login");
+        request.setRemoteAddr(proxy);
+        request.addHeader("X-Forwarded-For", client);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        remoteIp.doFilter(request, response, (req, res) -> filter.doFilter(req, res, new MockFilterChain()));
+        return response;
+    }
+
+    private static MockHttpServletResponse send(RateLimitFilter filter, String path, String ip) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setRemoteAddr(ip);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
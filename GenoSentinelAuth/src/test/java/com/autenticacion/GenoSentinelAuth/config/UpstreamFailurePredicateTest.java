@@ -0,0 +1,113 @@
+package com.autenticacion.GenoSentinelAuth.config;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Circuit breaker y bulkhead con la configuración de application.properties y el mismo orden que
+ * ApiClient.call (bulkhead dentro del circuit breaker).
+ */
+class UpstreamFailurePredicateTest {
+
+    private static final String CB = "resilience4j.circuitbreaker.configs.default.";
+
+    private CircuitBreaker circuitBreaker;
+    private Bulkhead bulkhead;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws Exception {
+        Properties props = PropertiesLoaderUtils.loadProperties(new ClassPathResource("application.properties"));
+        Class<? extends Throwable>[] ignored = Arrays.stream(props.getProperty(CB + "ignore-exceptions", "").split(","))
+                .filter(name -> !name.isBlank())
+                .map(name -> {
+                    try {
+                        return (Class<? extends Throwable>) Class.forName(name.trim());
+                    } catch (ClassNotFoundException e) {
+                        throw new IllegalStateException(e);
+                    }
+                })
+                .toArray(Class[]::new);
+        assertThat(props.getProperty(CB + "record-failure-predicate")).isEqualTo(UpstreamFailurePredicate.class.getName());
+
+        circuitBreaker = CircuitBreaker.of("test", CircuitBreakerConfig.custom()
+                .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+                .slidingWindowSize(10)
+                .minimumNumberOfCalls(10)
+                .failureRateThreshold(50)
+                .recordException(new UpstreamFailurePredicate())
+                .ignoreExceptions(ignored)
+                .build());
+        bulkhead = Bulkhead.of("test", BulkheadConfig.custom()
+                .maxConcurrentCalls(1)
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+    }
+
+    @Test
+    void bulkheadRejectionsDoNotKeepTheCircuitClosed() {
+        // Una llamada colgada ocupa el bulkhead: el resto se rechaza localmente
+        Disposable hung = call(Mono.never()).subscribe();
+        for (int i = 0; i < 30; i++) {
+            assertThatThrownBy(() -> call(Mono.just("ok")).block()).isInstanceOf(BulkheadFullException.class);
+        }
+        assertThat(circuitBreaker.getMetrics().getNumberOfSuccessfulCalls()).isZero();
+        hung.dispose();
+
+        // Los fallos reales del microservicio abren el circuito aunque haya habido rechazos
+        for (int i = 0; i < 10; i++) {
+            assertThatThrownBy(() -> call(Mono.error(new IOException("connection reset"))).block())
+                    .hasCauseInstanceOf(IOException.class);
+        }
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void clientErrorsCountAsSuccessfulCalls() {
+        for (int i = 0; i < 10; i++) {
+            WebClientResponseException notFound = WebClientResponseException.create(
+                    HttpStatus.NOT_FOUND.value(), "Not Found", HttpHeaders.EMPTY, new byte[0], null);
+            assertThatThrownBy(() -> call(Mono.error(notFound)).block()).isSameAs(notFound);
+        }
+        assertThat(circuitBreaker.getMetrics().getNumberOfFailedCalls()).isZero();
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void serverErrorsCountAsFailures() {
+        for (int i = 0; i < 10; i++) {
+            WebClientResponseException unavailable = WebClientResponseException.create(
+                    HttpStatus.SERVICE_UNAVAILABLE.value(), "Unavailable", HttpHeaders.EMPTY, new byte[0], null);
+            assertThatThrownBy(() -> call(Mono.error(unavailable)).block()).isSameAs(unavailable);
+        }
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    private <T> Mono<T> call(Mono<T> request) {
+        return request
+                .transformDeferred(BulkheadOperator.of(bulkhead))
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreaker));
+    }
+}
@@ -0,0 +1,84 @@
+package com.autenticacion.GenoSentinelAuth.controller;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Semántica de primer éxito del hedge: el error de un intento no cancela al otro.
+ */
+class ApiClientHedgeTest {
+
+    private static final Duration DELAY = Duration.ofMillis(20);
+    private static final Duration WAIT = Duration.ofSeconds(5);
+
+    @Test
+    void backupErrorDoesNotCancelAPrimaryThatSucceedsLater() {
+        AtomicBoolean primaryCancelled = new AtomicBoolean();
+        Mono<String> primary = Mono.just("primary")
+                .delayElement(Duration.ofMillis(200))
+                .doOnCancel(() -> primaryCancelled.set(true));
+
+        String body = ApiClient.hedged(primary, DELAY, () -> Mono.<String>error(new RuntimeException("bulkhead full")))
+                .block(WAIT);
+
+        assertThat(body).isEqualTo("primary");
+        assertThat(primaryCancelled).isFalse();
+    }
+
+    @Test
+    void backupAnswersForAStalledPrimary() {
+        String body = ApiClient.hedged(Mono.<String>never(), DELAY, () -> Mono.just("backup")).block(WAIT);
+
+        assertThat(body).isEqualTo("backup");
+    }
+
+    @Test
+    void primaryErrorAfterTheBackupStartedWaitsForTheBackup() {
+        Mono<String> primary = Mono.<String>error(new RuntimeException("primary 503"))
+                .delaySubscription(Duration.ofMillis(50));
+
+        String body = ApiClient.hedged(primary, DELAY, () -> Mono.just("backup").delayElement(Duration.ofMillis(150)))
+                .block(WAIT);
+
+        assertThat(body).isEqualTo("backup");
+    }
+
+    @Test
+    void failsWithThePrimaryErrorOnlyWhenBothFail() {
+        Mono<String> primary = Mono.<String>error(new RuntimeException("primary 503"))
+                .delaySubscription(Duration.ofMillis(100));
+
+        assertThatThrownBy(() -> ApiClient.hedged(primary, DELAY,
+                () -> Mono.<String>error(new RuntimeException("backup 503"))).block(WAIT))
+                .hasMessage("primary 503");
+    }
+
+    @Test
+    void primaryThatFailsBeforeTheDelayFailsAtOnceWithoutABackup() {
+        AtomicBoolean backupStarted = new AtomicBoolean();
+
+        assertThatThrownBy(() -> ApiClient.hedged(Mono.<String>error(new RuntimeException("primary 404")),
+                Duration.ofSeconds(30), () -> {
+                    backupStarted.set(true);
+                    return Mono.just("backup");
+                }).block(Duration.ofSeconds(1)))
+                .hasMessage("primary 404");
+        assertThat(backupStarted).isFalse();
+    }
+
+    @Test
+    void backupWithoutBudgetLeavesThePrimaryAlone() {
+        Mono<String> primary = Mono.just("primary").delayElement(Duration.ofMillis(100));
+
+        assertThat(ApiClient.hedged(primary, DELAY, Mono::<String>empty).block(WAIT)).isEqualTo("primary");
+        assertThatThrownBy(() -> ApiClient.hedged(Mono.<String>error(new RuntimeException("primary 503"))
+                .delaySubscription(Duration.ofMillis(100)), DELAY, Mono::<String>empty).block(WAIT))
+                .hasMessage("primary 503");
+    }
+}
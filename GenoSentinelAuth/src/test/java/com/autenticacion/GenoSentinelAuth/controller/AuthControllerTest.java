@@ -0,0 +1,177 @@
+package com.autenticacion.GenoSentinelAuth.controller;
+
+import com.autenticacion.GenoSentinelAuth.exceptions.IncorrectPasswordException;
+import com.autenticacion.GenoSentinelAuth.exceptions.UserAlreadyExistsException;
+import com.autenticacion.GenoSentinelAuth.models.dto.RegisterRequest;
+import com.autenticacion.GenoSentinelAuth.models.entities.Role;
+import com.autenticacion.GenoSentinelAuth.repositories.UsersRepository;
+import com.autenticacion.GenoSentinelAuth.services.JwtService;
+import com.autenticacion.GenoSentinelAuth.services.RefreshTokenService;
+import com.autenticacion.GenoSentinelAuth.services.UserCacheService;
+import com.autenticacion.GenoSentinelAuth.services.UserCacheService.CachedUser;
+import org.hibernate.exception.ConstraintViolationException;
+import org.hibernate.exception.ConstraintViolationException.ConstraintKind;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Login (cuentas desactivadas) y registro: solo la violación de la clave única de username o email
+ * es un 409 (repositorios simulados).
+ */
+class AuthControllerTest {
+
+    private final UsersRepository usersRepository = mock(UsersRepository.class);
+    private final UserCacheService userCache = mock(UserCacheService.class);
+    private final RefreshTokenService refreshTokens = mock(RefreshTokenService.class);
+    private final JwtService jwt = mock(JwtService.class);
+    private final PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
+    private final AuthController controller =
+            new AuthController(usersRepository, userCache, refreshTokens, jwt, passwordEncoder);
+
+    @BeforeEach
+    void setUp() {
+        Role role = new Role();
+        role.setId(2L);
+        role.setName("USER");
+        when(userCache.findRole("USER")).thenReturn(Optional.of(role));
+        when(passwordEncoder.encode(anyString())).thenReturn("$2a$10$hash");
+    }
+
+    @Test
+    void loginIssuesTokensForAnEnabledUser() {
+        when(userCache.findByUsername("ana")).thenReturn(Optional.of(user(true)));
+        when(passwordEncoder.matches("secret", "$2a$10$hash")).thenReturn(true);
+        when(refreshTokens.issue(7L)).thenReturn("refresh");
+        when(jwt.generate("ana", List.of("USER"))).thenReturn("access");
+
+        assertThat(login("secret")).containsEntry("access_token", "access").containsEntry("refresh_token", "refresh");
+    }
+
+    @Test
+    void disabledAccountGetsTheSameErrorAsAWrongPassword() {
+        when(userCache.findByUsername("ana")).thenReturn(Optional.of(user(false)));
+        when(passwordEncoder.matches("secret", "$2a$10$hash")).thenReturn(true);
+
+        assertThatThrownBy(() -> login("wrong"))
+                .isInstanceOf(IncorrectPasswordException.class)
+                .hasMessage("Incorrect password");
+        assertThatThrownBy(() -> login("secret"))
+                .isInstanceOf(IncorrectPasswordException.class)
+                .hasMessage("Incorrect password");
+        verify(passwordEncoder).matches("wrong", "$2a$10$hash");
+        verifyNoInteractions(refreshTokens, jwt);
+    }
+
+    @Test
+    void mysqlDuplicateEmailIsAConflict() {
+        failInsertWith(hibernate(mysql("Duplicate entry 'ana@x' for key 'users.email'", 1062), ConstraintKind.UNIQUE, "users.email"));
+
+        assertThatThrownBy(this::register)
+                .isInstanceOf(UserAlreadyExistsException.class)
+                .hasMessage("Email already registered");
+    }
+
+    @Test
+    void mysqlDuplicateUsernameIsAConflictAlsoWithoutHibernate() {
+        failInsertWith(new DataIntegrityViolationException("could not execute statement",
+                mysql("Duplicate entry 'ana' for key 'users.username'", 1062)));
+
+        assertThatThrownBy(this::register)
+                .isInstanceOf(UserAlreadyExistsException.class)
+                .hasMessage("Username already exists");
+    }
+
+    @Test
+    void h2UniqueIndexViolationIsAConflict() {
+        failInsertWith(new DataIntegrityViolationException("could not execute statement", new SQLException(
+                "Unique index or primary key violation: \"PUBLIC.UK_USERS_EMAIL_INDEX_4 ON PUBLIC.USERS(EMAIL NULLS FIRST) "
+                        + "VALUES ( /* 2 */ 'ana@x' )\"", "23505", 23505)));
+
+        assertThatThrownBy(this::register)
+                .isInstanceOf(UserAlreadyExistsException.class)
+                .hasMessage("Email already registered");
+    }
+
+    @Test
+    void postgresUniqueConstraintViolationIsAConflict() {
+        SQLException duplicate = new SQLException("ERROR: duplicate key value violates unique constraint \"users_username_key\"\n"
+                + "  Detail: Key (username)=(ana) already exists.", "23505");
+        failInsertWith(hibernate(duplicate, ConstraintKind.UNIQUE, "users_username_key"));
+
+        assertThatThrownBy(this::register)
+                .isInstanceOf(UserAlreadyExistsException.class)
+                .hasMessage("Username already exists");
+    }
+
+    @Test
+    void notNullViolationIsNotAConflict() {
+        DataIntegrityViolationException notNull =
+                hibernate(mysql("Column 'email' cannot be null", 1048), ConstraintKind.OTHER, null);
+        failInsertWith(notNull);
+
+        assertThatThrownBy(this::register).isSameAs(notNull);
+    }
+
+    @Test
+    void foreignKeyViolationIsNotAConflict() {
+        DataIntegrityViolationException foreignKey = new DataIntegrityViolationException("could not execute statement",
+                mysql("Cannot add or update a child row: a foreign key constraint fails (`genosentinel`.`users`, "
+                        + "CONSTRAINT `fk_users_role` FOREIGN KEY (`role_id`) REFERENCES `roles` (`id`))", 1452));
+        failInsertWith(foreignKey);
+
+        assertThatThrownBy(this::register).isSameAs(foreignKey);
+    }
+
+    @Test
+    void uniqueViolationOnAnotherKeyIsNotAConflict() {
+        DataIntegrityViolationException other = hibernate(
+                mysql("Duplicate entry '7' for key 'refresh_tokens.token_hash'", 1062), ConstraintKind.UNIQUE, "refresh_tokens.token_hash");
+        failInsertWith(other);
+
+        assertThatThrownBy(this::register).isSameAs(other);
+    }
+
+    private Map<String, Object> login(String password) {
+        return controller.login(Map.of("username", "ana", "email", "ana@x", "password", password));
+    }
+
+    private static CachedUser user(boolean enabled) {
+        return new CachedUser(7L, "ana", "ana@x", "$2a$10$hash", enabled, "USER");
+    }
+
+    private Object register() {
+        RegisterRequest request = new RegisterRequest();
+        request.setUsername("ana");
+        request.setEmail("ana@x");
+        request.setPassword("secret");
+        return controller.register(request);
+    }
+
+    private void failInsertWith(DataIntegrityViolationException e) {
+        when(usersRepository.saveAndFlush(any())).thenThrow(e);
+    }
+
+    private static SQLException mysql(String message, int errorCode) {
+        return new SQLIntegrityConstraintViolationException(message, "23000", errorCode);
+    }
+
+    // Como la traduce Spring: DataIntegrityViolationException con la excepción de Hibernate como causa
+    private static DataIntegrityViolationException hibernate(SQLException sql, ConstraintKind kind, String constraint) {
+        return new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("could not execute statement", sql, "insert into users ...", kind, constraint));
+    }
+}
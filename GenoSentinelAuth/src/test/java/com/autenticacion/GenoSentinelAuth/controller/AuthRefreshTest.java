@@ -0,0 +1,139 @@
+package com.autenticacion.GenoSentinelAuth.controller;
+
+import com.autenticacion.GenoSentinelAuth.exceptions.GlobalExceptionHandler;
+import com.autenticacion.GenoSentinelAuth.models.entities.RefreshToken;
+import com.autenticacion.GenoSentinelAuth.models.entities.Role;
+import com.autenticacion.GenoSentinelAuth.models.entities.Users;
+import com.autenticacion.GenoSentinelAuth.repositories.RefreshTokenRepository;
+import com.autenticacion.GenoSentinelAuth.repositories.UsersRepository;
+import com.autenticacion.GenoSentinelAuth.services.JwtService;
+import com.autenticacion.GenoSentinelAuth.services.RefreshTokenService;
+import com.autenticacion.GenoSentinelAuth.services.UserCacheService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * POST /auth/refresh de punta a punta: controlador, RefreshTokenService real sobre un almacén de tokens
+ * en memoria y GlobalExceptionHandler para los códigos HTTP.
+ */
+class AuthRefreshTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final RefreshTokenRepository refreshTokenRepository = mock(RefreshTokenRepository.class);
+    private final UsersRepository usersRepository = mock(UsersRepository.class);
+    private final JwtService jwt = mock(JwtService.class);
+    private final RefreshTokenService refreshTokens =
+            new RefreshTokenService(refreshTokenRepository, usersRepository, Duration.ofDays(7), 10);
+    private final MockMvc mvc = MockMvcBuilders
+            .standaloneSetup(new AuthController(usersRepository, mock(UserCacheService.class), refreshTokens,
+                    jwt, mock(PasswordEncoder.class)))
+            .setControllerAdvice(new GlobalExceptionHandler())
+            .build();
+
+    // Tokens guardados por hash, como la tabla refresh_tokens
+    private final Map<String, RefreshToken> stored = new ConcurrentHashMap<>();
+    private final AtomicLong ids = new AtomicLong();
+    private Users user;
+
+    @BeforeEach
+    void setUp() {
+        Role role = new Role();
+        role.setId(2L);
+        role.setName("USER");
+        user = new Users();
+        user.setId(7L);
+        user.setUsername("ana");
+        user.setRole(role);
+
+        when(usersRepository.getReferenceById(7L)).thenReturn(user);
+        when(refreshTokenRepository.findIdsByUserNewestFirst(anyLong())).thenReturn(List.of());
+        when(refreshTokenRepository.save(any())).thenAnswer(inv -> {
+            RefreshToken token = inv.getArgument(0);
+            token.setId(ids.incrementAndGet());
+            stored.put(token.getTokenHash(), token);
+            return token;
+        });
+        when(refreshTokenRepository.findByTokenHash(anyString()))
+                .thenAnswer(inv -> Optional.ofNullable(stored.get(inv.<String>getArgument(0))));
+        when(refreshTokenRepository.deleteByIdAndCount(anyLong()))
+                .thenAnswer(inv -> stored.values().removeIf(t -> t.getId().equals(inv.getArgument(0))) ? 1 : 0);
+        when(jwt.generate("ana", List.of("USER"))).thenReturn("access");
+    }
+
+    @Test
+    void refreshRotatesTheToken() throws Exception {
+        String first = refreshTokens.issue(7L);
+
+        JsonNode body = mapper.readTree(refresh(first)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+
+        assertThat(body.get("access_token").asText()).isEqualTo("access");
+        assertThat(body.get("token_type").asText()).isEqualTo("Bearer");
+        String next = body.get("refresh_token").asText();
+        assertThat(next).isNotBlank().isNotEqualTo(first);
+        // El nuevo sirve para la siguiente renovación
+        refresh(next).andExpect(status().isOk());
+    }
+
+    @Test
+    void reusedTokenIsRejected() throws Exception {
+        String first = refreshTokens.issue(7L);
+        refresh(first).andExpect(status().isOk());
+
+        refresh(first)
+                .andExpect(status().isUnauthorized())
+                .andExpect(content().string("Invalid refresh token"));
+    }
+
+    @Test
+    void disabledUserIsRejected() throws Exception {
+        String token = refreshTokens.issue(7L);
+        user.setActive(false);
+
+        refresh(token)
+                .andExpect(status().isUnauthorized())
+                .andExpect(content().string("User account is disabled"));
+        verifyNoInteractions(jwt);
+    }
+
+    @Test
+    void unknownTokenIsRejected() throws Exception {
+        refresh("not-a-token").andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void missingTokenIsABadRequest() throws Exception {
+        mvc.perform(post("/auth/refresh").contentType(MediaType.APPLICATION_JSON).content("{}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private ResultActions refresh(String token) throws Exception {
+        return mvc.perform(post("/auth/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(Map.of("refresh_token", token))));
+    }
+}
@@ -0,0 +1,115 @@
+package com.autenticacion.GenoSentinelAuth.controller;
+
+import io.netty.buffer.UnpooledByteBufAllocator;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.NettyDataBuffer;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Liberación de los DataBuffer del microservicio (con contador de referencias, como los de Reactor Netty).
+ */
+class DataBufferInputStreamTest {
+
+    private static final Duration NEVER = Duration.ofHours(1);
+
+    private final NettyDataBufferFactory factory = new NettyDataBufferFactory(UnpooledByteBufAllocator.DEFAULT);
+
+    @Test
+    void readsWholeBodyAndReleasesEveryBuffer() throws IOException {
+        List<NettyDataBuffer> buffers = buffers(10);
+        try (InputStream in = new DataBufferInputStream(Flux.<DataBuffer>fromIterable(buffers), 4, NEVER)) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8))
+                    .startsWith("chunk-0;chunk-1;")
+                    .endsWith("chunk-9;");
+        }
+        assertThat(buffers).noneMatch(NettyDataBuffer::isAllocated);
+    }
+
+    @Test
+    void closeBeforeTheEndCancelsAndReleasesPendingBuffers() throws IOException {
+        List<NettyDataBuffer> buffers = buffers(10);
+        AtomicBoolean cancelled = new AtomicBoolean();
+        InputStream in = new DataBufferInputStream(
+                Flux.<DataBuffer>fromIterable(buffers).doOnCancel(() -> cancelled.set(true)), 4, NEVER);
+
+        assertThat(in.read()).isEqualTo('c');
+        in.close();
+
+        assertThat(cancelled).isTrue();
+        // Solo se llegaron a pedir los 4 primeros; el resto nunca salió del microservicio
+        assertThat(buffers.subList(0, 4)).noneMatch(NettyDataBuffer::isAllocated);
+        assertThat(in.read()).isEqualTo(-1);
+        buffers.subList(4, buffers.size()).forEach(NettyDataBuffer::release);
+    }
+
+    @Test
+    void errorIsThrownAsIOExceptionAndBuffersAreReleased() throws IOException {
+        List<NettyDataBuffer> buffers = buffers(2);
+        InputStream in = new DataBufferInputStream(
+                Flux.<DataBuffer>fromIterable(buffers).concatWith(Flux.error(new IllegalStateException("connection reset"))), 4, NEVER);
+
+        assertThatThrownBy(() -> in.transferTo(OutputStream.nullOutputStream()))
+                .isInstanceOf(IOException.class)
+                .hasRootCauseMessage("connection reset");
+        in.close();
+
+        assertThat(buffers).noneMatch(NettyDataBuffer::isAllocated);
+    }
+
+    @Test
+    void subscribesOnFirstRead() throws IOException {
+        AtomicBoolean subscribed = new AtomicBoolean();
+        try (InputStream in = new DataBufferInputStream(
+                Flux.<DataBuffer>fromIterable(buffers(1)).doOnSubscribe(s -> subscribed.set(true)), 4, NEVER)) {
+            assertThat(subscribed).isFalse();
+            in.transferTo(OutputStream.nullOutputStream());
+            assertThat(subscribed).isTrue();
+        }
+    }
+
+    @Test
+    void closeWithoutReadingCancelsTheBody() throws IOException {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        AtomicBoolean emitted = new AtomicBoolean();
+        InputStream in = new DataBufferInputStream(
+                Flux.<DataBuffer>never().doOnCancel(() -> cancelled.set(true)).doOnNext(b -> emitted.set(true)), 4, NEVER);
+
+        in.close();
+
+        assertThat(cancelled).isTrue();
+        assertThat(emitted).isFalse();
+    }
+
+    @Test
+    void unreadStreamIsAbandonedAfterTheTimeout() throws Exception {
+        CountDownLatch cancelled = new CountDownLatch(1);
+        InputStream in = new DataBufferInputStream(
+                Flux.<DataBuffer>never().doOnCancel(cancelled::countDown), 4, Duration.ofMillis(50));
+
+        assertThat(cancelled.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(in.read()).isEqualTo(-1);
+    }
+
+    private List<NettyDataBuffer> buffers(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> factory.wrap(("chunk-" + i + ";").getBytes(StandardCharsets.UTF_8)))
+                .map(NettyDataBuffer.class::cast)
+                .toList();
+    }
+}
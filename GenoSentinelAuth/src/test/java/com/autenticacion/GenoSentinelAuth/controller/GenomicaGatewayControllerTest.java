@@ -0,0 +1,71 @@
+package com.autenticacion.GenoSentinelAuth.controller;
+
+import com.autenticacion.GenoSentinelAuth.services.GatewayResponseCache;
+import com.autenticacion.GenoSentinelAuth.services.JwtService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Resultados de la asignación de variantes en lote: éxito, error y respuesta 2xx sin cuerpo (ApiClient simulado).
+ */
+class GenomicaGatewayControllerTest {
+
+    private final ApiClient apiClient = mock(ApiClient.class);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final GenomicaGatewayController controller = new GenomicaGatewayController(
+            mock(JwtService.class), apiClient, mock(GatewayResponseCache.class), objectMapper);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(controller, "genomicaUrl", "http://genomica");
+        ReflectionTestUtils.setField(controller, "batchConcurrency", 2);
+        ReflectionTestUtils.setField(controller, "batchMaxItems", 10);
+        when(apiClient.dispatch(any())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void everyItemIsReportedIncludingEmptyBodies() throws IOException {
+        when(apiClient.post(anyString(), any())).thenAnswer(invocation -> {
+            JsonNode item = invocation.getArgument(1);
+            return switch (item.path("patient").asText()) {
+                case "ok" -> Mono.just("{\"id\":1}");
+                case "fail" -> Mono.error(new RuntimeException("External microservice error: 400 Bad Request"));
+                default -> Mono.empty();
+            };
+        });
+
+        ResponseEntity<?> response = controller.assignVariantBatch(MediaType.APPLICATION_JSON,
+                body("[{\"patient\":\"ok\"},{\"patient\":\"fail\"},{\"patient\":\"empty\"}]")).block();
+
+        Map<String, Object> summary = (Map<String, Object>) response.getBody();
+        assertThat(summary).containsEntry("total", 3).containsEntry("succeeded", 2L).containsEntry("failed", 1L);
+        List<Map<String, Object>> results = (List<Map<String, Object>>) summary.get("results");
+        assertThat(results).extracting(r -> r.get("index")).containsExactly(0, 1, 2);
+        assertThat(results).extracting(r -> r.get("success")).containsExactly(true, false, true);
+        assertThat(results.get(0).get("response")).isEqualTo(objectMapper.readTree("{\"id\":1}"));
+        assertThat(results.get(1)).containsEntry("error", "External microservice error: 400 Bad Request");
+        assertThat(results.get(2)).containsEntry("response", null);
+    }
+
+    private static ByteArrayInputStream body(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
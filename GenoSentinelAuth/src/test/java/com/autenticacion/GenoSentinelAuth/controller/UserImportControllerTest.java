@@ -0,0 +1,146 @@
+package com.autenticacion.GenoSentinelAuth.controller;
+
+import com.autenticacion.GenoSentinelAuth.exceptions.InvalidInputException;
+import com.autenticacion.GenoSentinelAuth.models.dto.UserImportRow;
+import com.autenticacion.GenoSentinelAuth.services.UserImportService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * Lectura del cuerpo de la importación masiva (CSV y JSON) y límite security.import.max-rows.
+ */
+class UserImportControllerTest {
+
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+
+    private final UserImportService importService = mock(UserImportService.class);
+    private final UserImportController controller = new UserImportController(importService, new ObjectMapper());
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ReflectionTestUtils.setField(controller, "maxRows", 3);
+        // Todas las filas se crean: el resultado solo refleja lo que se leyó
+        when(importService.importUsers(anyList())).thenAnswer(invocation -> {
+            List<UserImportRow> rows = invocation.getArgument(0);
+            return IntStream.range(0, rows.size())
+                    .mapToObj(i -> new UserImportService.RowResult(i, rows.get(i).getUsername(), null))
+                    .toList();
+        });
+    }
+
+    @Test
+    void readsCsvWithBomQuotesAndColumnsInAnyOrder() throws IOException {
+        String csv = "\uFEFFEmail,Username,Password,Role\n"
+                + "ana@x,ana,\"se,cr\"\"et\",ADMIN\n"
+                + "\n"
+                + "luis@x,luis,p\n";
+
+        Map<String, Object> response = controller.importUsers(TEXT_CSV, body(csv));
+
+        assertThat(response).containsEntry("total", 2).containsEntry("created", 2L);
+        assertThat(rows()).containsExactly(
+                new UserImportRow("ana", "ana@x", "se,cr\"et", "ADMIN"),
+                new UserImportRow("luis", "luis@x", "p", null));
+    }
+
+    @Test
+    void csvWithoutRequiredColumnsIsRejected() {
+        assertThatThrownBy(() -> controller.importUsers(TEXT_CSV, body("username,email\nana,ana@x\n")))
+                .isInstanceOf(InvalidInputException.class)
+                .hasMessage("CSV header must contain username, email and password");
+        verifyNoInteractions(importService);
+    }
+
+    @Test
+    void readsJsonArray() throws IOException {
+        String json = "[{\"username\":\"ana\",\"email\":\"ana@x\",\"password\":\"p\",\"role\":\"ADMIN\"},"
+                + "{\"username\":\"luis\",\"email\":\"luis@x\",\"password\":\"p\"}]";
+
+        controller.importUsers(MediaType.APPLICATION_JSON, body(json));
+
+        assertThat(rows()).containsExactly(
+                new UserImportRow("ana", "ana@x", "p", "ADMIN"),
+                new UserImportRow("luis", "luis@x", "p", null));
+    }
+
+    @Test
+    void jsonThatIsNotAnArrayOrIsMalformedIsRejected() {
+        assertThatThrownBy(() -> controller.importUsers(MediaType.APPLICATION_JSON, body("{\"username\":\"ana\"}")))
+                .isInstanceOf(InvalidInputException.class)
+                .hasMessage("Import body must be a JSON array");
+        assertThatThrownBy(() -> controller.importUsers(MediaType.APPLICATION_JSON, body("[{\"username\":")))
+                .isInstanceOf(InvalidInputException.class)
+                .hasMessageStartingWith("Invalid JSON in import");
+        verifyNoInteractions(importService);
+    }
+
+    @Test
+    void jsonArrayWithANonObjectElementOrUnclosedIsRejected() {
+        assertThatThrownBy(() -> controller.importUsers(MediaType.APPLICATION_JSON,
+                body("[{\"username\":\"ana\",\"email\":\"ana@x\",\"password\":\"p\"},42,{\"username\":\"luis\"}]")))
+                .isInstanceOf(InvalidInputException.class)
+                .hasMessage("Import array elements must be JSON objects");
+        assertThatThrownBy(() -> controller.importUsers(MediaType.APPLICATION_JSON,
+                body("[{\"username\":\"ana\",\"email\":\"ana@x\",\"password\":\"p\"}")))
+                .isInstanceOf(InvalidInputException.class)
+                .hasMessageStartingWith("Invalid JSON in import");
+        verifyNoInteractions(importService);
+    }
+
+    @Test
+    void emptyImportIsRejected() {
+        assertThatThrownBy(() -> controller.importUsers(TEXT_CSV, body("")))
+                .isInstanceOf(InvalidInputException.class)
+                .hasMessage("Import cannot be empty");
+        assertThatThrownBy(() -> controller.importUsers(MediaType.APPLICATION_JSON, body("[]")))
+                .isInstanceOf(InvalidInputException.class)
+                .hasMessage("Import cannot be empty");
+    }
+
+    @Test
+    void importBeyondMaxRowsIsRejectedWithoutProcessingAnyRow() {
+        StringBuilder csv = new StringBuilder("username,email,password\n");
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 4; i++) {
+            csv.append("u").append(i).append(",u").append(i).append("@x,p\n");
+            json.append(i > 0 ? "," : "").append("{\"username\":\"u").append(i).append("\"}");
+        }
+        json.append(']');
+
+        assertThatThrownBy(() -> controller.importUsers(TEXT_CSV, body(csv.toString())))
+                .isInstanceOf(InvalidInputException.class)
+                .hasMessage("Import exceeds 3 rows");
+        assertThatThrownBy(() -> controller.importUsers(MediaType.APPLICATION_JSON, body(json.toString())))
+                .isInstanceOf(InvalidInputException.class)
+                .hasMessage("Import exceeds 3 rows");
+        verifyNoInteractions(importService);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<UserImportRow> rows() {
+        ArgumentCaptor<List<UserImportRow>> rows = ArgumentCaptor.forClass(List.class);
+        verify(importService).importUsers(rows.capture());
+        return rows.getValue();
+    }
+
+    private static ByteArrayInputStream body(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,92 @@
+package com.autenticacion.GenoSentinelAuth.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.mock.env.MockEnvironment;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Aciertos, invalidación y generaciones del caché de rutas del gateway.
+ */
+class GatewayResponseCacheTest {
+
+    private static final String URL = "http://clinical/tumortypes";
+
+    private final GatewayResponseCache cache = new GatewayResponseCache(environment(), new SimpleMeterRegistry());
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void secondGetIsServedFromTheCache() {
+        assertThat(cache.get("tumortypes", URL, loader("v1")).block()).isEqualTo("v1");
+        assertThat(cache.get("tumortypes", URL, loader("v2")).block()).isEqualTo("v1");
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void invalidateDropsTheRoute() {
+        cache.get("tumortypes", URL, loader("v1")).block();
+
+        cache.invalidate("tumortypes");
+
+        assertThat(cache.get("tumortypes", URL, loader("v2")).block()).isEqualTo("v2");
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void loadStartedBeforeAnInvalidationIsNotCached() {
+        Sinks.One<String> slowLoad = Sinks.one();
+        Mono<String> inFlight = cache.get("tumortypes", URL, slowLoad::asMono).cache();
+        inFlight.subscribe();
+
+        // Una escritura termina mientras la lectura sigue en curso
+        cache.invalidate("tumortypes");
+        slowLoad.tryEmitValue("stale");
+
+        // El que la pidió recibe su respuesta, pero no queda en el caché
+        assertThat(inFlight.block()).isEqualTo("stale");
+        assertThat(cache.get("tumortypes", URL, loader("fresh")).block()).isEqualTo("fresh");
+    }
+
+    @Test
+    void writesInvalidateWhetherTheySucceedOrFail() {
+        cache.get("tumortypes", URL, loader("v1")).block();
+        cache.invalidating(Mono.just("created"), "tumortypes").block();
+        assertThat(cache.get("tumortypes", URL, loader("v2")).block()).isEqualTo("v2");
+
+        Mono<String> failed = cache.invalidating(Mono.error(new IllegalStateException("upstream 500")), "tumortypes");
+        assertThatThrownBy(failed::block).hasMessage("upstream 500");
+        assertThat(cache.get("tumortypes", URL, loader("v3")).block()).isEqualTo("v3");
+    }
+
+    @Test
+    void routesWithoutTtlAreNotCached() {
+        cache.get("genes", URL, loader("v1")).block();
+        assertThat(cache.get("genes", URL, loader("v2")).block()).isEqualTo("v2");
+        assertThat(loads).hasValue(2);
+    }
+
+    private static MockEnvironment environment() {
+        MockEnvironment env = new MockEnvironment()
+                .withProperty("gateway.cache.tumortypes.ttl", "10m")
+                .withProperty("gateway.cache.tumortypes.max-size", "10");
+        // Conversión de "10m" a Duration, como en la aplicación
+        env.setConversionService(new ApplicationConversionService());
+        return env;
+    }
+
+    private Supplier<Mono<String>> loader(String value) {
+        return () -> Mono.fromSupplier(() -> {
+            loads.incrementAndGet();
+            return value;
+        });
+    }
+}
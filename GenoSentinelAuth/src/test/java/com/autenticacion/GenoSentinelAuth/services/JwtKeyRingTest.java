@@ -0,0 +1,117 @@
+package com.autenticacion.GenoSentinelAuth.services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Elección de la clave de firma en la rotación (plazo de publicación, active-kid) sobre un directorio temporal.
+ */
+class JwtKeyRingTest {
+
+    private static final Duration PUBLISH_DELAY = Duration.ofMinutes(5);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void firstKeySignsAtOnce() throws Exception {
+        writeKey(dir, "2025-01", Instant.now());
+
+        JwtKeyRing ring = new JwtKeyRing(dir.toString(), "", PUBLISH_DELAY);
+
+        assertThat(ring.signingKey().kid()).isEqualTo("2025-01");
+        assertThat(ring.verificationKey("2025-01")).isNotNull();
+    }
+
+    @Test
+    void newKeyIsPublishedButDoesNotSignBeforeJwksMaxAge() throws Exception {
+        writeKey(dir, "2025-01", Instant.now().minus(Duration.ofDays(30)));
+        writeKey(dir, "2025-02", Instant.now());
+
+        JwtKeyRing ring = new JwtKeyRing(dir.toString(), "", PUBLISH_DELAY);
+
+        assertThat(ring.signingKey().kid()).isEqualTo("2025-01");
+        assertThat(ring.verificationKey("2025-02")).isNotNull();
+        assertThat(ring.jwks()).contains("\"kid\":\"2025-01\"").contains("\"kid\":\"2025-02\"");
+
+        // Pasado el plazo (aquí: .pub publicada hace más de jwks-max-age) la nueva pasa a firmar
+        touch(dir.resolve("2025-02.pub"), Instant.now().minus(PUBLISH_DELAY).minusSeconds(1));
+        ring.reload();
+
+        assertThat(ring.signingKey().kid()).isEqualTo("2025-02");
+        assertThat(ring.verificationKey("2025-01")).isNotNull();
+    }
+
+    @Test
+    void activeKidSignsEvenIfNewer() throws Exception {
+        writeKey(dir, "2025-01", Instant.now().minus(Duration.ofDays(30)));
+        writeKey(dir, "2025-02", Instant.now());
+
+        assertThat(new JwtKeyRing(dir.toString(), "2025-02", PUBLISH_DELAY).signingKey().kid()).isEqualTo("2025-02");
+    }
+
+    @Test
+    void unknownKidHasNoVerificationKey() throws Exception {
+        writeKey(dir, "2025-01", Instant.now());
+
+        assertThat(new JwtKeyRing(dir.toString(), "", PUBLISH_DELAY).verificationKey("2024-12")).isNull();
+    }
+
+    @Test
+    void activeKidWithoutItsKeyFilesFailsAtStartup() throws Exception {
+        writeKey(dir, "2025-01", Instant.now());
+
+        assertThatThrownBy(() -> new JwtKeyRing(dir.toString(), "missing", PUBLISH_DELAY))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("missing.key");
+    }
+
+    @Test
+    void noDirectoryMeansNoAsymmetricKeys() {
+        JwtKeyRing ring = new JwtKeyRing("", "", PUBLISH_DELAY);
+
+        assertThat(ring.signingKey()).isNull();
+        assertThat(ring.jwks()).isEqualTo("{\"keys\":[]}");
+    }
+
+    /**
+     * Escribe &lt;kid&gt;.key y &lt;kid&gt;.pub (EC P-256, PEM) con la fecha de modificación indicada.
+     */
+    static void writeKey(Path dir, String kid, Instant modified) throws IOException, GeneralSecurityException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        KeyPair pair = generator.generateKeyPair();
+        Path key = dir.resolve(kid + ".key");
+        Path pub = dir.resolve(kid + ".pub");
+        Files.writeString(key, pem("PRIVATE KEY", pair.getPrivate().getEncoded()), StandardCharsets.US_ASCII);
+        Files.writeString(pub, pem("PUBLIC KEY", pair.getPublic().getEncoded()), StandardCharsets.US_ASCII);
+        touch(key, modified);
+        touch(pub, modified);
+    }
+
+    private static void touch(Path file, Instant modified) throws IOException {
+        Files.setLastModifiedTime(file, FileTime.from(modified));
+    }
+
+    private static String pem(String type, byte[] der) {
+        return "-----BEGIN " + type + "-----\n"
+                + Base64.getMimeEncoder(64, "\n".getBytes(StandardCharsets.US_ASCII)).encodeToString(der)
+                + "\n-----END " + type + "-----\n";
+    }
+}
@@ -0,0 +1,117 @@
+package com.autenticacion.GenoSentinelAuth.services;
+
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Firma con la clave activa y aceptación de tokens según su kid: claves retiradas o desconocidas
+ * y tokens HS256 sin kid una vez que firman las claves asimétricas (jwt.legacy-hs256.enabled).
+ */
+class JwtServiceTest {
+
+    private static final String SECRET = "MySuperSecretKeyForJWTs1234567890!@#";
+    private static final Duration PUBLISH_DELAY = Duration.ofMinutes(5);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void signsWithTheActiveKidAndVerifiesWithItsPublicKey() throws Exception {
+        JwtKeyRingTest.writeKey(dir, "2025-01", Instant.now());
+        JwtService jwt = service(keyRing(dir), false);
+
+        JwtService.TokenClaims claims = jwt.parseClaims(jwt.generate("ana", List.of("ROLE_ADMIN")));
+
+        assertThat(claims.subject()).isEqualTo("ana");
+        assertThat(claims.roles()).containsExactly("ROLE_ADMIN");
+        assertThat(claims.keyId()).isEqualTo("2025-01");
+    }
+
+    @Test
+    void tokensOfTheOldKeyStillVerifyAfterRotation() throws Exception {
+        JwtKeyRingTest.writeKey(dir, "2025-01", Instant.now().minus(Duration.ofDays(30)));
+        JwtKeyRing ring = keyRing(dir);
+        JwtService jwt = service(ring, false);
+        String oldToken = jwt.generate("ana", List.of());
+
+        JwtKeyRingTest.writeKey(dir, "2025-02", Instant.now().minus(PUBLISH_DELAY).minusSeconds(1));
+        ring.reload();
+
+        assertThat(jwt.parseClaims(jwt.generate("ana", List.of())).keyId()).isEqualTo("2025-02");
+        assertThat(jwt.parseClaims(oldToken).keyId()).isEqualTo("2025-01");
+
+        // Retirada la clave antigua, sus tokens se rechazan
+        Files.delete(dir.resolve("2025-01.key"));
+        Files.delete(dir.resolve("2025-01.pub"));
+        ring.reload();
+        assertThat(jwt.isVerificationKey("2025-01")).isFalse();
+        assertThatThrownBy(() -> jwt.parseClaims(oldToken)).isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    void unknownKidIsRejected(@TempDir Path otherDir) throws Exception {
+        JwtKeyRingTest.writeKey(dir, "2025-01", Instant.now());
+        JwtKeyRingTest.writeKey(otherDir, "foreign", Instant.now());
+        String foreignToken = service(keyRing(otherDir), false).generate("ana", List.of());
+
+        JwtService jwt = service(keyRing(dir), false);
+
+        assertThat(jwt.isVerificationKey("foreign")).isFalse();
+        assertThatThrownBy(() -> jwt.parseClaims(foreignToken))
+                .isInstanceOf(JwtException.class)
+                .hasMessageContaining("Unknown JWT key id");
+    }
+
+    @Test
+    void hs256TokensAreRejectedOnceAsymmetricKeysSign() throws Exception {
+        String hs256Token = service(keyRing(null), false).generate("ana", List.of());
+        JwtKeyRingTest.writeKey(dir, "2025-01", Instant.now());
+
+        JwtService jwt = service(keyRing(dir), false);
+
+        assertThat(jwt.isVerificationKey(null)).isFalse();
+        assertThatThrownBy(() -> jwt.parseClaims(hs256Token))
+                .isInstanceOf(JwtException.class)
+                .hasMessageContaining("without key id");
+    }
+
+    @Test
+    void hs256TokensAreAcceptedDuringMigrationWithTheLegacyFlag() throws Exception {
+        String hs256Token = service(keyRing(null), false).generate("ana", List.of());
+        JwtKeyRingTest.writeKey(dir, "2025-01", Instant.now());
+
+        JwtService jwt = service(keyRing(dir), true);
+
+        assertThat(jwt.isVerificationKey(null)).isTrue();
+        JwtService.TokenClaims claims = jwt.parseClaims(hs256Token);
+        assertThat(claims.subject()).isEqualTo("ana");
+        assertThat(claims.keyId()).isNull();
+    }
+
+    @Test
+    void withoutAsymmetricKeysSignsAndVerifiesHs256() {
+        JwtService jwt = service(keyRing(null), false);
+
+        assertThat(jwt.parseClaims("Bearer " + jwt.generate("ana", List.of())).keyId()).isNull();
+        assertThat(jwt.isVerificationKey(null)).isTrue();
+    }
+
+    private static JwtKeyRing keyRing(Path dir) {
+        return new JwtKeyRing(dir == null ? "" : dir.toString(), "", PUBLISH_DELAY);
+    }
+
+    private static JwtService service(JwtKeyRing ring, boolean legacyHs256) {
+        return new JwtService(SECRET, 15, ring, legacyHs256, new SimpleMeterRegistry());
+    }
+}
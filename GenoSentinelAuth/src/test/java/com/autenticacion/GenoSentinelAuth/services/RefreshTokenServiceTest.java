@@ -0,0 +1,133 @@
+package com.autenticacion.GenoSentinelAuth.services;
+
+import com.autenticacion.GenoSentinelAuth.exceptions.InvalidRefreshTokenException;
+import com.autenticacion.GenoSentinelAuth.models.entities.RefreshToken;
+import com.autenticacion.GenoSentinelAuth.models.entities.Users;
+import com.autenticacion.GenoSentinelAuth.repositories.RefreshTokenRepository;
+import com.autenticacion.GenoSentinelAuth.repositories.UsersRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Emisión, rotación y límite de refresh tokens por usuario (repositorios simulados).
+ */
+class RefreshTokenServiceTest {
+
+    private static final int MAX_PER_USER = 3;
+
+    private final RefreshTokenRepository refreshTokens = mock(RefreshTokenRepository.class);
+    private final UsersRepository usersRepository = mock(UsersRepository.class);
+    private final RefreshTokenService service =
+            new RefreshTokenService(refreshTokens, usersRepository, Duration.ofDays(7), MAX_PER_USER);
+
+    private Users user;
+
+    @BeforeEach
+    void setUp() {
+        user = new Users();
+        user.setId(7L);
+        when(usersRepository.getReferenceById(7L)).thenReturn(user);
+        when(refreshTokens.findIdsByUserNewestFirst(7L)).thenReturn(List.of());
+    }
+
+    @Test
+    void issueStoresOnlyTheHash() {
+        String token = service.issue(7L);
+
+        ArgumentCaptor<RefreshToken> saved = ArgumentCaptor.forClass(RefreshToken.class);
+        verify(refreshTokens).save(saved.capture());
+        assertThat(saved.getValue().getTokenHash()).hasSize(64).isNotEqualTo(token);
+        assertThat(saved.getValue().getUser()).isSameAs(user);
+        assertThat(saved.getValue().getExpiresAt()).isAfter(Instant.now().plus(Duration.ofDays(6)));
+    }
+
+    @Test
+    void issueDeletesExpiredAndOldestTokensBeyondTheCap() {
+        when(refreshTokens.findIdsByUserNewestFirst(7L)).thenReturn(List.of(40L, 30L, 20L, 10L));
+
+        service.issue(7L);
+
+        verify(refreshTokens).deleteExpiredByUser(eq(7L), any(Instant.class));
+        // Quedan los 2 más recientes más el nuevo: MAX_PER_USER
+        verify(refreshTokens).deleteAllByIdInBatch(List.of(20L, 10L));
+    }
+
+    @Test
+    void issueUnderTheCapDeletesNothing() {
+        when(refreshTokens.findIdsByUserNewestFirst(7L)).thenReturn(List.of(20L, 10L));
+
+        service.issue(7L);
+
+        verify(refreshTokens, never()).deleteAllByIdInBatch(any());
+    }
+
+    @Test
+    void rotateConsumesTheTokenAndIssuesANewOne() {
+        RefreshToken current = token(Instant.now().plusSeconds(60));
+        when(refreshTokens.findByTokenHash(anyString())).thenReturn(Optional.of(current));
+        when(refreshTokens.deleteByIdAndCount(1L)).thenReturn(1);
+
+        RefreshTokenService.Rotation rotation = service.rotate("old-token");
+
+        assertThat(rotation.user()).isSameAs(user);
+        assertThat(rotation.refreshToken()).isNotBlank().isNotEqualTo("old-token");
+        verify(refreshTokens).deleteByIdAndCount(1L);
+        verify(refreshTokens).save(any(RefreshToken.class));
+    }
+
+    @Test
+    void reusedTokenIsRejected() {
+        when(refreshTokens.findByTokenHash(anyString())).thenReturn(Optional.of(token(Instant.now().plusSeconds(60))));
+        // Otra petición ya lo borró
+        when(refreshTokens.deleteByIdAndCount(1L)).thenReturn(0);
+
+        assertThatThrownBy(() -> service.rotate("old-token"))
+                .isInstanceOf(InvalidRefreshTokenException.class)
+                .hasMessage("Refresh token already used");
+        verify(refreshTokens, never()).save(any());
+    }
+
+    @Test
+    void unknownExpiredAndDisabledTokensAreRejected() {
+        when(refreshTokens.findByTokenHash(anyString())).thenReturn(Optional.empty());
+        assertThatThrownBy(() -> service.rotate("missing"))
+                .isInstanceOf(InvalidRefreshTokenException.class)
+                .hasMessage("Invalid refresh token");
+
+        when(refreshTokens.findByTokenHash(anyString())).thenReturn(Optional.of(token(Instant.now().minusSeconds(1))));
+        when(refreshTokens.deleteByIdAndCount(1L)).thenReturn(1);
+        assertThatThrownBy(() -> service.rotate("expired"))
+                .isInstanceOf(InvalidRefreshTokenException.class)
+                .hasMessage("Refresh token expired");
+
+        user.setActive(false);
+        when(refreshTokens.findByTokenHash(anyString())).thenReturn(Optional.of(token(Instant.now().plusSeconds(60))));
+        assertThatThrownBy(() -> service.rotate("disabled"))
+                .isInstanceOf(InvalidRefreshTokenException.class)
+                .hasMessage("User account is disabled");
+
+        verify(refreshTokens, never()).save(any());
+    }
+
+    private RefreshToken token(Instant expiresAt) {
+        RefreshToken token = new RefreshToken();
+        token.setId(1L);
+        token.setUser(user);
+        token.setCreatedAt(Instant.now().minusSeconds(60));
+        token.setExpiresAt(expiresAt);
+        return token;
+    }
+}
@@ -0,0 +1,97 @@
+package com.autenticacion.GenoSentinelAuth.services;
+
+import com.autenticacion.GenoSentinelAuth.services.RoutePolicies.RoutePolicy;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Retardo del hedge (percentil de las latencias) y presupuesto de hedges por ruta.
+ */
+class RoutePoliciesTest {
+
+    @Test
+    void noHedgeUntilEnoughSamples() {
+        RoutePolicy policy = hedging(0.05, Duration.ofMillis(1));
+
+        recordMillis(policy, 63);
+        assertThat(policy.hedgeDelay()).isNull();
+
+        recordMillis(policy, 1);
+        assertThat(policy.hedgeDelay()).isNotNull();
+    }
+
+    @Test
+    void delayIsTheConfiguredPercentileButNeverBelowMinDelay() {
+        RoutePolicy policy = hedging(0.05, Duration.ofMillis(1));
+        // Latencias de 1 a 64 ms: el p95 es la muestra 61 (índice floor(0.95 × 64) = 60)
+        IntStream.rangeClosed(1, 64).forEach(ms -> policy.record(TimeUnit.MILLISECONDS.toNanos(ms)));
+        assertThat(policy.hedgeDelay()).isEqualTo(Duration.ofMillis(61));
+
+        RoutePolicy slowFloor = hedging(0.05, Duration.ofMillis(100));
+        IntStream.rangeClosed(1, 64).forEach(ms -> slowFloor.record(TimeUnit.MILLISECONDS.toNanos(ms)));
+        assertThat(slowFloor.hedgeDelay()).isEqualTo(Duration.ofMillis(100));
+    }
+
+    @Test
+    void hedgesAreLimitedToMaxRateOfRequests() {
+        RoutePolicy policy = hedging(0.05, Duration.ofMillis(1));
+        recordMillis(policy, 64);
+
+        // 100 peticiones a max-rate 0.05 dan para 5 hedges
+        for (int i = 0; i < 100; i++) {
+            policy.hedgeDelay();
+        }
+        assertThat(IntStream.range(0, 10).filter(i -> policy.tryAcquireHedge()).count()).isEqualTo(5);
+        assertThat(policy.tryAcquireHedge()).isFalse();
+
+        // Otras 20 peticiones aportan una ficha más
+        for (int i = 0; i < 20; i++) {
+            policy.hedgeDelay();
+        }
+        assertThat(policy.tryAcquireHedge()).isTrue();
+        assertThat(policy.tryAcquireHedge()).isFalse();
+    }
+
+    @Test
+    void unusedBudgetIsCappedSoAQuietPeriodCannotFundABurst() {
+        RoutePolicy policy = hedging(0.05, Duration.ofMillis(1));
+        recordMillis(policy, 64);
+
+        for (int i = 0; i < 10_000; i++) {
+            policy.hedgeDelay();
+        }
+        assertThat(IntStream.range(0, 100).filter(i -> policy.tryAcquireHedge()).count()).isEqualTo(10);
+    }
+
+    @Test
+    void routesAreReadFromProperties() {
+        RoutePolicies policies = new RoutePolicies(new MockEnvironment()
+                .withProperty("gateway.route.patient.hedge.enabled", "true"));
+
+        RoutePolicy unconfigured = policies.forRoute("default");
+        recordMillis(unconfigured, 64);
+        assertThat(unconfigured.timeout()).isNull();
+        assertThat(unconfigured.hedgeDelay()).isNull();
+
+        RoutePolicy patient = policies.forRoute("patient");
+        assertThat(policies.forRoute("patient")).isSameAs(patient);
+        recordMillis(patient, 64);
+        assertThat(patient.hedgeDelay()).isNotNull();
+    }
+
+    private static RoutePolicy hedging(double maxRate, Duration minDelay) {
+        return new RoutePolicy(Duration.ofSeconds(2), true, 0.95, maxRate, minDelay);
+    }
+
+    private static void recordMillis(RoutePolicy policy, int samples) {
+        for (int i = 0; i < samples; i++) {
+            policy.record(TimeUnit.MILLISECONDS.toNanos(5));
+        }
+    }
+}
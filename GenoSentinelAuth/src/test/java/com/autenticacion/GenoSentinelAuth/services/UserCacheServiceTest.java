@@ -0,0 +1,73 @@
+package com.autenticacion.GenoSentinelAuth.services;
+
+import com.autenticacion.GenoSentinelAuth.models.entities.Role;
+import com.autenticacion.GenoSentinelAuth.models.entities.Users;
+import com.autenticacion.GenoSentinelAuth.repositories.RoleRepository;
+import com.autenticacion.GenoSentinelAuth.repositories.UsersRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Caché de usuarios y roles: sin búsquedas negativas cacheadas ni entidades compartidas (repositorios simulados).
+ */
+class UserCacheServiceTest {
+
+    private final UsersRepository usersRepository = mock(UsersRepository.class);
+    private final RoleRepository roleRepository = mock(RoleRepository.class);
+    private final UserCacheService cache = new UserCacheService(usersRepository, roleRepository, new SimpleMeterRegistry(),
+            Duration.ofMinutes(1), 100, Duration.ofHours(1), 10);
+
+    @Test
+    void knownUsersAreServedFromTheCache() {
+        when(usersRepository.findByUsername("ana")).thenReturn(Optional.of(user("ana")));
+
+        assertThat(cache.findByUsername("ana")).isPresent();
+        assertThat(cache.findByUsername("ana")).get().extracting(UserCacheService.CachedUser::role).isEqualTo("USER");
+        verify(usersRepository, times(1)).findByUsername("ana");
+    }
+
+    @Test
+    void missingUsersAreNotCachedSoARegistrationElsewhereIsSeenAtOnce() {
+        when(usersRepository.findByUsername("ana")).thenReturn(Optional.empty());
+        assertThat(cache.findByUsername("ana")).isEmpty();
+
+        // Registrado en otra réplica: esta no recibe la invalidación
+        when(usersRepository.findByUsername("ana")).thenReturn(Optional.of(user("ana")));
+        assertThat(cache.findByUsername("ana")).isPresent();
+    }
+
+    @Test
+    void rolesAreCachedButEachCallGetsItsOwnEntity() {
+        when(roleRepository.findByName("USER")).thenReturn(Optional.of(role()));
+
+        Role first = cache.findRole("USER").orElseThrow();
+        Role second = cache.findRole("USER").orElseThrow();
+
+        assertThat(first).isNotSameAs(second).isEqualTo(second);
+        assertThat(first.getId()).isEqualTo(2L);
+        verify(roleRepository, times(1)).findByName("USER");
+    }
+
+    private static Role role() {
+        Role role = new Role();
+        role.setId(2L);
+        role.setName("USER");
+        return role;
+    }
+
+    private static Users user(String username) {
+        Users user = new Users();
+        user.setId(7L);
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setPassword("$2a$10$hash");
+        user.setRole(role());
+        return user;
+    }
+}
@@ -0,0 +1,73 @@
+package com.autenticacion.GenoSentinelAuth.services;
+
+import com.autenticacion.GenoSentinelAuth.auth.BoundedPasswordEncoder;
+import com.autenticacion.GenoSentinelAuth.models.dto.UserImportRow;
+import com.autenticacion.GenoSentinelAuth.models.entities.Role;
+import com.autenticacion.GenoSentinelAuth.models.entities.Users;
+import com.autenticacion.GenoSentinelAuth.repositories.UsersRepository;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * Reintento fila a fila de un lote fallido: cada fila informa de su causa real (repositorios simulados).
+ */
+class UserImportServiceTest {
+
+    private final UsersRepository usersRepository = mock(UsersRepository.class);
+    private final UserCacheService userCache = mock(UserCacheService.class);
+    private final BoundedPasswordEncoder passwordEncoder = mock(BoundedPasswordEncoder.class);
+    private final UserImportService service = new UserImportService(usersRepository, userCache, passwordEncoder,
+            mock(PlatformTransactionManager.class), 50);
+
+    @BeforeEach
+    void setUp() {
+        Role role = new Role();
+        role.setId(2L);
+        role.setName("USER");
+        when(userCache.findRole("USER")).thenReturn(Optional.of(role));
+        when(passwordEncoder.encodeAll(anyList())).thenAnswer(invocation -> ((List<?>) invocation.getArgument(0)).stream()
+                .map(password -> "$2a$10$" + password)
+                .toList());
+    }
+
+    @Test
+    void failedBatchIsRetriedRowByRowWithEachRowsOwnCause() {
+        when(usersRepository.saveAll(anyList())).thenThrow(violation("Duplicate entry 'luis' for key 'users.username'", "23000", 1062));
+        when(usersRepository.saveAndFlush(any(Users.class))).thenAnswer(invocation -> {
+            Users user = invocation.getArgument(0);
+            return switch (user.getUsername()) {
+                case "luis" -> throw violation("Duplicate entry 'luis' for key 'users.username'", "23000", 1062);
+                case "eva" -> throw violation("Data too long for column 'password' at row 1", "22001", 1406);
+                default -> user;
+            };
+        });
+
+        List<UserImportService.RowResult> results = service.importUsers(List.of(
+                new UserImportRow("ana", "ana@x", "p", null),
+                new UserImportRow("luis", "luis@x", "p", null),
+                new UserImportRow("eva", "eva@x", "p", null)));
+
+        assertThat(results).extracting(UserImportService.RowResult::error).containsExactly(
+                null,
+                "Username already exists",
+                "Could not save user: Data too long for column 'password' at row 1");
+    }
+
+    private static DataIntegrityViolationException violation(String message, String sqlState, int errorCode) {
+        SQLException sql = new SQLException(message, sqlState, errorCode);
+        return new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("could not execute statement", sql, "insert into users ..."));
+    }
+}